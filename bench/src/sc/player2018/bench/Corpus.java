@@ -0,0 +1,86 @@
+package sc.player2018.bench;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.logic.BoardLayout;
+import sc.player2018.logic.MoveDescriptors;
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.MoveGenerator;
+import sc.player2018.tools.PositionFile;
+import sc.player2018.tools.Positions;
+import sc.plugin2018.GameState;
+
+/**
+ * Recorded positions of one game phase, read from bench/positions.txt (or the
+ * file given with -Dbench.positions=..., text or {@link PositionFile}). Every position is available as
+ * {@link GameState}, {@link CompactState} and with its possible moves.
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+	@Param({ "early", "mid", "end" })
+	public String phase;
+
+	public GameState[] gameStates;
+	public CompactState[] states;
+	public BoardIndex[] boards;
+	public BoardLayout[] layouts;
+	// encoded possible moves of every position, in the order of the move generator
+	public int[][] moves;
+
+	@Setup
+	public void load() throws IOException {
+		// the SDK logs a lot on debug level, that would be measured as well
+		Logger rootLogger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		((ch.qos.logback.classic.Logger) rootLogger).setLevel(ch.qos.logback.classic.Level.WARN);
+
+		List<Positions.Entry> entries = PositionFile.read(Paths.get(System.getProperty("bench.positions",
+				"bench/positions.txt")));
+		List<CompactState> selected = new ArrayList<>();
+		for (Positions.Entry entry : entries) {
+			if (entry.label.equals(phase)) {
+				selected.add(entry.state);
+			}
+		}
+		if (selected.isEmpty()) {
+			throw new IllegalStateException("No positions for phase " + phase);
+		}
+		int size = selected.size();
+		gameStates = new GameState[size];
+		states = new CompactState[size];
+		boards = new BoardIndex[size];
+		layouts = new BoardLayout[size];
+		moves = new int[size][];
+		for (int i = 0; i < size; i++) {
+			states[i] = selected.get(i);
+			gameStates[i] = states[i].toGameState();
+			boards[i] = states[i].getBoardIndex();
+			layouts[i] = BoardLayout.analyze(boards[i]);
+			int[] buffer = new int[MoveGenerator.MAX_MOVES];
+			moves[i] = Arrays.copyOf(buffer, MoveGenerator.generate(states[i], buffer, 0));
+		}
+	}
+
+	public int size() {
+		return states.length;
+	}
+
+	/**
+	 * @return new descriptors of the possible moves of a position, the logic
+	 *         builds them from the generated moves once per turn
+	 */
+	public MoveDescriptors descriptors(int i) {
+		return new MoveDescriptors(moves[i], moves[i].length, boards[i], gameStates[i].getCurrentPlayer().getFieldIndex());
+	}
+}
@@ -0,0 +1,59 @@
+package sc.player2018.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import sc.player2018.Settings;
+import sc.player2018.logic.Logic;
+import sc.plugin2018.GameState;
+import sc.plugin2018.Move;
+
+/**
+ * Latency of the whole decision of {@link Logic#onRequestAction()}, one
+ * position of the phase per call. The search uses its time budget, so the move
+ * time is short to keep the runs reasonable; the sampled percentiles show how
+ * close the decisions stay to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecisionBench {
+	@Param({ "200" })
+	public int moveTime;
+
+	private Logic logic;
+	private Move sent;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		Settings settings = new Settings();
+		settings.moveTime = moveTime;
+		settings.threads = 1;
+		settings.ponder = false;
+		// nothing is written to disk between the measured turns
+		settings.layoutCache = null;
+		settings.statsDir = null;
+		logic = new Logic(move -> sent = move, settings);
+	}
+
+	@Benchmark
+	public Move decide(Corpus corpus) {
+		GameState gameState = corpus.gameStates[next];
+		next = (next + 1) % corpus.size();
+		logic.onUpdate(gameState);
+		logic.onUpdate(gameState.getCurrentPlayer(), gameState.getOtherPlayer());
+		logic.onRequestAction();
+		// the positions come from different games, the board has to be read again
+		logic.gameEnded(null, null, null);
+		return sent;
+	}
+}
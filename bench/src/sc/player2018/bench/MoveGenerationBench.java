@@ -0,0 +1,38 @@
+package sc.player2018.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sc.player2018.search.MoveGenerator;
+
+/**
+ * Generating the moves of all positions of a phase, with the SDK and with our
+ * generator
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoveGenerationBench {
+	private final int[] buffer = new int[MoveGenerator.MAX_MOVES];
+
+	@Benchmark
+	public void possibleMoves(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(corpus.gameStates[i].getPossibleMoves());
+		}
+	}
+
+	@Benchmark
+	public void moveGenerator(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(MoveGenerator.generate(corpus.states[i], buffer, 0));
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package sc.player2018.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sc.player2018.logic.EarlyGameLogic;
+import sc.player2018.logic.EndGameLogic;
+import sc.player2018.logic.LogicHelper;
+import sc.player2018.logic.MidGameLogic;
+import sc.player2018.logic.MoveList;
+import sc.player2018.search.Weights;
+import sc.plugin2018.CardType;
+import sc.plugin2018.FieldType;
+import sc.plugin2018.GameState;
+
+/**
+ * The filter chains of the phase logics on all positions of a phase, every
+ * chain starts with a new {@link MoveList} like in the logic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoveListBench {
+
+	private static MoveList list(Corpus corpus, int i) {
+		return new MoveList(corpus.descriptors(i), corpus.gameStates[i]);
+	}
+
+	@Benchmark
+	public void nearest(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).getNearest());
+		}
+	}
+
+	@Benchmark
+	public void furthest(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).getFurthest());
+		}
+	}
+
+	@Benchmark
+	public void nearestTo(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).getNearestTo(5));
+		}
+	}
+
+	@Benchmark
+	public void selectEatSaladCardNearest(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).select(CardType.EAT_SALAD).getNearest());
+		}
+	}
+
+	@Benchmark
+	public void selectSaladNearest(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).select(FieldType.SALAD).getNearest());
+		}
+	}
+
+	@Benchmark
+	public void selectPosition2Nearest(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).select(FieldType.POSITION_2).getNearest());
+		}
+	}
+
+	@Benchmark
+	public void earlyDefaultChain(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).deselect(CardType.HURRY_AHEAD).deselect(CardType.EAT_SALAD)
+					.deselect(CardType.TAKE_OR_DROP_CARROTS, -20).deselect(CardType.TAKE_OR_DROP_CARROTS, 0)
+					.deselect(CardType.EAT_SALAD).getNearest());
+		}
+	}
+
+	@Benchmark
+	public void endFurthestChain(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).deselect(CardType.HURRY_AHEAD).deselect(CardType.FALL_BACK).getFurthest(2));
+		}
+	}
+
+	@Benchmark
+	public void endCarrotFurthestChain(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).select(FieldType.CARROT).deselect(CardType.HURRY_AHEAD)
+					.deselect(CardType.FALL_BACK).getFurthest());
+		}
+	}
+
+	@Benchmark
+	public void endCarrotNearestToChain(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			hole.consume(list(corpus, i).select(FieldType.CARROT).deselect(CardType.HURRY_AHEAD)
+					.deselect(CardType.FALL_BACK).getNearestTo(5));
+		}
+	}
+
+	@Benchmark
+	public void carrotExchangeSaladFallback(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			MoveList list = list(corpus, i);
+			hole.consume(list.getCarrotExchange(10));
+			hole.consume(list.getSaladEat());
+			hole.consume(list.getFallback());
+		}
+	}
+
+	/**
+	 * The logic of the phase the position belongs to, as chosen by the client
+	 */
+	@Benchmark
+	public void phaseLogic(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			GameState gameState = corpus.gameStates[i];
+			if (gameState.getCurrentPlayer().getSalads() == 0) {
+				hole.consume(EndGameLogic.getTurn(gameState, corpus.layouts[i], Weights.DEFAULT,
+						corpus.descriptors(i)));
+			} else if (gameState.getCurrentPlayer().getFieldIndex() < 10) {
+				hole.consume(EarlyGameLogic.getTurn(gameState, corpus.layouts[i], Weights.DEFAULT,
+						corpus.descriptors(i)));
+			} else {
+				hole.consume(MidGameLogic.getTurn(gameState, corpus.layouts[i], corpus.descriptors(i)));
+			}
+		}
+	}
+
+	@Benchmark
+	public void simpleMove(Corpus corpus, Blackhole hole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			GameState gameState = corpus.gameStates[i];
+			hole.consume(LogicHelper.getSimpleMove(corpus.descriptors(i), gameState.getCurrentPlayer(), Weights.DEFAULT));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package sc.player2018.bench;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.thoughtworks.xstream.XStream;
+
+import sc.player2018.logic.StateDecoder;
+import sc.player2018.search.CompactState;
+import sc.player2018.tools.LocalServer;
+import sc.plugin2018.GameState;
+import sc.protocol.responses.MementoPacket;
+import sc.protocol.responses.RoomPacket;
+
+/**
+ * Reading the state messages of the server for all positions of a phase, until
+ * the logic has its {@link CompactState}: with XStream and a conversion, like
+ * without the decoder, and with the {@link StateDecoder}. The messages are
+ * written by the XStream of the SDK into one protocol stream, like the server
+ * does, and read like the client reads its connection. Run with
+ * {@code -prof gc} to compare the allocation as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProtocolBench {
+	private XStream plain;
+	private XStream decoding;
+	private int messages;
+	private String traffic;
+
+	@Setup
+	public void setUp(Corpus corpus) throws IOException {
+		plain = LocalServer.createXStream();
+		decoding = LocalServer.createXStream();
+		StateDecoder.register(decoding);
+		messages = corpus.size();
+		StringWriter out = new StringWriter();
+		try (ObjectOutputStream stream = plain.createObjectOutputStream(out, "protocol")) {
+			for (int i = 0; i < messages; i++) {
+				stream.writeObject(new RoomPacket("bench", new MementoPacket(corpus.gameStates[i], null)));
+			}
+		}
+		traffic = out.toString();
+	}
+
+	private static GameState state(Object message) {
+		return (GameState) ((MementoPacket) ((RoomPacket) message).getData()).getState();
+	}
+
+	@Benchmark
+	public void xStream(Corpus corpus, Blackhole hole) throws Exception {
+		ObjectInputStream in = plain.createObjectInputStream(new StringReader(traffic));
+		for (int i = 0; i < messages; i++) {
+			hole.consume(CompactState.fromGameState(state(in.readObject()), corpus.boards[i]));
+		}
+	}
+
+	@Benchmark
+	public void stateDecoder(Blackhole hole) throws Exception {
+		ObjectInputStream in = decoding.createObjectInputStream(new StringReader(traffic));
+		for (int i = 0; i < messages; i++) {
+			hole.consume(StateDecoder.getDecoded(state(in.readObject())));
+		}
+	}
+}
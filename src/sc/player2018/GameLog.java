@@ -0,0 +1,252 @@
+package sc.player2018;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.logic.Logic;
+import sc.player2018.search.Mcts;
+import sc.player2018.search.Ponderer;
+import sc.player2018.search.Search;
+import sc.shared.PlayerColor;
+
+/**
+ * Log of the game loop. The messages are fixed {@link Event}s with up to three
+ * numbers; logging one only checks the level of its logger and writes the
+ * numbers into a preallocated ring buffer, nothing is allocated or formatted
+ * on the thread of the turn. After {@link #start()} a background thread
+ * formats the events and hands them to their logger, before that (in the
+ * arena and the tools) they are written right away.
+ *
+ * The events are logged with the logger of the class that logs them, so the
+ * levels set in {@link Starter#main(String[])} and logback.xml still apply. If
+ * the buffer is full, events are dropped and counted.
+ */
+public class GameLog {
+	private enum Level {
+		ERROR, WARN, INFO
+	}
+
+	public enum Event {
+		GAME_ENDED(Logic.class, Level.INFO, "Das Spiel ist beendet."),
+		REQUEST(Logic.class, Level.INFO, "Es wurde ein Zug angefordert."),
+		PLAYER_CHANGE(Logic.class, Level.INFO, "Spielerwechsel: {}") {
+			@Override
+			void appendArgument(StringBuilder builder, long value) {
+				builder.append(PlayerColor.values()[(int) value]);
+			}
+		},
+		UPDATE(Logic.class, Level.INFO, "Das Spiel geht voran: Zug: {}"),
+		CURRENT_PLAYER(Logic.class, Level.INFO, "Spieler: {}") {
+			@Override
+			void appendArgument(StringBuilder builder, long value) {
+				builder.append(PlayerColor.values()[(int) value]);
+			}
+		},
+		OWN_COLOR(Logic.class, Level.WARN, "We are color: {}") {
+			@Override
+			void appendArgument(StringBuilder builder, long value) {
+				builder.append(PlayerColor.values()[(int) value]);
+			}
+		},
+		// printed in warn, as info mostly isn't shown
+		TURN_TIME(Logic.class, Level.WARN, "Time needed for turn:{}"),
+		TURN_TIME_TABLE(Logic.class, Level.WARN, "Time needed for turn:{} table hits:{}% fill:{}%"),
+		SEARCH_FALLBACK(Logic.class, Level.WARN, "Search found no move, falling back to phase logic"),
+		SIMPLE_FALLBACK(Logic.class, Level.WARN, "Falling back to simple logic"),
+		EMERGENCY(Logic.class, Level.ERROR, "EMERGENCY MOVE, the selected move was empty"),
+		SEARCH_FINISHED(Search.class, Level.INFO, "Search finished depth {} with {} nodes"),
+		MCTS_FINISHED(Mcts.class, Level.INFO, "MCTS finished with {} playouts, {} nodes"),
+		PONDER_HIT(Ponderer.class, Level.INFO, "Ponder hit, depth {}");
+
+		private final Logger logger;
+		private final Level level;
+		private final String message;
+
+		Event(Class<?> source, Level level, String message) {
+			this.logger = LoggerFactory.getLogger(source);
+			this.level = level;
+			this.message = message;
+		}
+
+		boolean isEnabled() {
+			switch (level) {
+			case ERROR:
+				return logger.isErrorEnabled();
+			case WARN:
+				return logger.isWarnEnabled();
+			default:
+				return logger.isInfoEnabled();
+			}
+		}
+
+		void appendArgument(StringBuilder builder, long value) {
+			builder.append(value);
+		}
+
+		String format(long a, long b, long c) {
+			StringBuilder builder = new StringBuilder(message.length() + 32);
+			int argument = 0;
+			int start = 0;
+			int placeholder;
+			while ((placeholder = message.indexOf("{}", start)) != -1) {
+				builder.append(message, start, placeholder);
+				appendArgument(builder, argument == 0 ? a : argument == 1 ? b : c);
+				argument++;
+				start = placeholder + 2;
+			}
+			return builder.append(message, start, message.length()).toString();
+		}
+
+		void write(String text) {
+			switch (level) {
+			case ERROR:
+				logger.error(text);
+				break;
+			case WARN:
+				logger.warn(text);
+				break;
+			default:
+				logger.info(text);
+			}
+		}
+	}
+
+	private static final Event[] EVENTS = Event.values();
+	private static final int CAPACITY = 1 << 12;
+	private static final int ARGUMENTS = 3;
+	// the writer looks for new events this often when the buffer is empty
+	private static final long POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final int[] events = new int[CAPACITY];
+	private static final long[] arguments = new long[CAPACITY * ARGUMENTS];
+	// sequence number + 1 of the event in each slot once it is completely written
+	private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+	// next sequence number to hand out to a logging thread
+	private static final AtomicLong claimed = new AtomicLong();
+	// next sequence number the writer reads, the slots before it can be reused
+	private static volatile long consumed;
+	private static final AtomicLong dropped = new AtomicLong();
+
+	private static volatile Thread writer;
+	private static volatile boolean running;
+
+	public static void log(Event event) {
+		log(event, 0, 0, 0);
+	}
+
+	public static void log(Event event, long a) {
+		log(event, a, 0, 0);
+	}
+
+	public static void log(Event event, long a, long b) {
+		log(event, a, b, 0);
+	}
+
+	public static void log(Event event, long a, long b, long c) {
+		if (!event.isEnabled()) {
+			return;
+		}
+		if (writer == null) {
+			event.write(event.format(a, b, c));
+			return;
+		}
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if (sequence - consumed >= CAPACITY) {
+				// never wait for the writer on the thread of the turn
+				dropped.incrementAndGet();
+				return;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence + 1));
+		int slot = (int) sequence & (CAPACITY - 1);
+		events[slot] = event.ordinal();
+		arguments[slot * ARGUMENTS] = a;
+		arguments[slot * ARGUMENTS + 1] = b;
+		arguments[slot * ARGUMENTS + 2] = c;
+		published.lazySet(slot, sequence + 1);
+	}
+
+	/**
+	 * Starts the background thread that writes the events, from now on they are
+	 * written asynchronously. The remaining events are written when the JVM
+	 * shuts down.
+	 */
+	public static synchronized void start() {
+		if (writer != null) {
+			return;
+		}
+		running = true;
+		Thread thread = new Thread(GameLog::run, "game-log");
+		thread.setDaemon(true);
+		// formatting must not take the cores from the search
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+		writer = thread;
+		Runtime.getRuntime().addShutdownHook(new Thread(GameLog::stop, "game-log-shutdown"));
+	}
+
+	/**
+	 * Writes the remaining events and stops the background thread, later events
+	 * are written right away again
+	 */
+	public static synchronized void stop() {
+		Thread thread = writer;
+		if (thread == null) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(thread);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer = null;
+		// events that were claimed while the writer stopped
+		drain();
+	}
+
+	private static void run() {
+		while (running) {
+			if (!drain()) {
+				LockSupport.parkNanos(POLL_INTERVAL);
+			}
+		}
+		drain();
+	}
+
+	/**
+	 * Writes all published events
+	 *
+	 * @return whether there were any
+	 */
+	private static boolean drain() {
+		boolean any = false;
+		while (true) {
+			long sequence = consumed;
+			int slot = (int) sequence & (CAPACITY - 1);
+			if (published.get(slot) != sequence + 1) {
+				break;
+			}
+			Event event = EVENTS[events[slot]];
+			long a = arguments[slot * ARGUMENTS];
+			long b = arguments[slot * ARGUMENTS + 1];
+			long c = arguments[slot * ARGUMENTS + 2];
+			// the slot can be reused from now on
+			consumed = sequence + 1;
+			event.write(event.format(a, b, c));
+			any = true;
+		}
+		long lost = dropped.getAndSet(0);
+		if (lost > 0) {
+			LoggerFactory.getLogger(GameLog.class).warn(lost + " log events dropped, the buffer was full");
+		}
+		return any;
+	}
+}
@@ -0,0 +1,50 @@
+package sc.player2018;
+
+import sc.player2018.search.Search;
+import sc.player2018.search.Weights;
+
+/**
+ * Options of the client that can be set on the command line, see
+ * {@link Starter#main(String[])}
+ */
+public class Settings {
+	/** how the client decides on its moves */
+	public enum Engine {
+		/** alpha-beta search, with the phase logic as fallback */
+		ALPHA_BETA,
+		/** Monte Carlo tree search */
+		MCTS,
+		/** only the phase logic the alpha-beta search falls back on, to test it on its own */
+		PHASE_LOGIC
+	}
+
+	public Engine engine = Engine.ALPHA_BETA;
+	/** size of the transposition table in megabytes */
+	public int tableSize = Search.DEFAULT_TABLE_SIZE;
+	/** number of threads searching in parallel, 1 searches on the calling thread */
+	public int threads = Runtime.getRuntime().availableProcessors();
+	/** depth the search always finishes, on the calling thread and ignoring the clock; 0 to search until the time is up */
+	public int searchDepth = 0;
+	/** whether to search during the turn of the opponent */
+	public boolean ponder = true;
+	/** file the analyzed board layouts are kept in, null to keep them in memory */
+	public String layoutCache = "layouts.cache";
+	/** file with the opening book, used if it exists */
+	public String openingBook = "opening.book";
+	/** file with the endgame tables, used if it exists */
+	public String endgameTables = "endgame.tb";
+	/** directory a summary of the turn times of every game is written to, null for none */
+	public String statsDir = "stats";
+	/** whether the game loop logs through the background thread of {@link GameLog} */
+	public boolean asyncLog = true;
+	/** whether the game states of the server are read by the {@link sc.player2018.logic.StateDecoder} instead of XStream */
+	public boolean stateDecoder = true;
+	/** time spent running the code of a turn before joining a game in milliseconds, 0 to skip it */
+	public int warmUpTime = 1000;
+	/** file with the weights of the evaluation, used if it exists */
+	public String weightsFile = "weights.txt";
+	/** weights of the evaluation and the move ratings, read from the weights file by the starter */
+	public Weights weights = Weights.DEFAULT;
+	/** time the server allows for one move in milliseconds */
+	public int moveTime = 2000;
+}
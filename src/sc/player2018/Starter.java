@@ -7,11 +7,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sc.framework.plugins.SimplePlayer;
 import sc.player2018.logic.Logic;
+import sc.player2018.logic.StateDecoder;
+import sc.player2018.logic.WarmUp;
+import sc.player2018.search.EndgameTables;
+import sc.player2018.search.OpeningBook;
+import sc.player2018.search.Weights;
 import sc.plugin2018.AbstractClient;
 import sc.plugin2018.IGameHandler;
+import sc.plugin2018.util.Configuration;
 import sc.shared.SharedConfiguration;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * Hauptklasse des Clients, die ueber Konsolenargumente gesteuert werden kann.
@@ -24,11 +32,27 @@ public class Starter extends AbstractClient {
 
   public Starter(String host, int port, String reservation)
           throws Exception {
+    this(host, port, reservation, new Settings());
+  }
+
+  public Starter(String host, int port, String reservation, Settings settings)
+          throws Exception {
     // client starten
     super(host, port);
 
+    if (settings.asyncLog) {
+      GameLog.start();
+    }
+    if (settings.stateDecoder) {
+      // before joining, the first state is decoded as well
+      StateDecoder.register(Configuration.getXStream());
+    }
+    loadTables(settings);
+    loadWeights(settings);
+    warmUp(settings);
+
     // Strategie zuweisen
-    IGameHandler logic = new Logic(this);
+    IGameHandler logic = new Logic(this, settings);
     setHandler(logic);
 
     // einem Spiel beitreten
@@ -40,6 +64,58 @@ public class Starter extends AbstractClient {
 
   }
 
+  /**
+   * Maps the opening book and the endgame tables generated offline, if they
+   * exist. Endgame tables that are missing are solved during the game.
+   */
+  private static void loadTables(Settings settings) {
+    try {
+      long start = System.nanoTime();
+      if (Files.exists(Paths.get(settings.openingBook))) {
+        OpeningBook.load(Paths.get(settings.openingBook));
+      }
+      if (Files.exists(Paths.get(settings.endgameTables))) {
+        EndgameTables.load(Paths.get(settings.endgameTables));
+      }
+      logger.info("{} book positions and {} endgame tables loaded in "
+              + (System.nanoTime() - start) / 1000000 + " ms",
+              OpeningBook.getSize(), EndgameTables.getFileTables());
+    } catch (IOException e) {
+      logger.warn("Tables could not be loaded: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Reads the weights written by the tuner, if there are any
+   */
+  private static void loadWeights(Settings settings) {
+    if (settings.weightsFile == null
+            || !Files.exists(Paths.get(settings.weightsFile))) {
+      return;
+    }
+    try {
+      settings.weights = Weights.read(Paths.get(settings.weightsFile));
+      logger.info("Weights loaded: {}", settings.weights);
+    } catch (IOException e) {
+      logger.warn("Weights could not be loaded: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Runs the code of a turn for a while, the first move request would
+   * otherwise be answered by the interpreter.
+   */
+  private static void warmUp(Settings settings) {
+    if (settings.warmUpTime <= 0) {
+      return;
+    }
+    long start = System.nanoTime();
+    int positions = WarmUp.run(settings, settings.warmUpTime);
+    // printed in warn, as info mostly isn't shown
+    logger.warn("Warm-up on {} positions took "
+            + (System.nanoTime() - start) / 1000000 + " ms", positions);
+  }
+
   public static void main(String[] args) throws IllegalOptionValueException,
           UnknownOptionException, IOException {
     System.setProperty("file.encoding", "UTF-8");
@@ -56,6 +132,23 @@ public class Starter extends AbstractClient {
     CmdLineParser.Option portOption = parser.addIntegerOption('p', "port");
     CmdLineParser.Option reservationOption = parser.addStringOption('r',
             "reservation");
+    CmdLineParser.Option hashOption = parser.addIntegerOption("hash");
+    CmdLineParser.Option threadsOption = parser.addIntegerOption('t',
+            "threads");
+    CmdLineParser.Option noPonderOption = parser.addBooleanOption(
+            "no-ponder");
+    CmdLineParser.Option engineOption = parser.addStringOption('e',
+            "engine");
+    CmdLineParser.Option endgameOption = parser.addStringOption("endgame");
+    CmdLineParser.Option bookOption = parser.addStringOption("book");
+    CmdLineParser.Option statsOption = parser.addStringOption("stats");
+    CmdLineParser.Option weightsOption = parser.addStringOption("weights");
+    CmdLineParser.Option noWarmUpOption = parser.addBooleanOption(
+            "no-warmup");
+    CmdLineParser.Option syncLogOption = parser.addBooleanOption(
+            "sync-log");
+    CmdLineParser.Option xstreamStatesOption = parser.addBooleanOption(
+            "xstream-states");
 
     try {
       // Parameter auslesen
@@ -72,10 +165,43 @@ public class Starter extends AbstractClient {
             SharedConfiguration.DEFAULT_PORT);
     String reservation = (String) parser.getOptionValue(reservationOption,
             "");
+    Settings settings = new Settings();
+    settings.tableSize = (Integer) parser.getOptionValue(hashOption,
+            settings.tableSize);
+    // with less than one thread there would be no search at all
+    settings.threads = Math.max(1, (Integer) parser.getOptionValue(
+            threadsOption, settings.threads));
+    settings.ponder = !(Boolean) parser.getOptionValue(noPonderOption,
+            Boolean.FALSE);
+    settings.endgameTables = (String) parser.getOptionValue(endgameOption,
+            settings.endgameTables);
+    settings.openingBook = (String) parser.getOptionValue(bookOption,
+            settings.openingBook);
+    settings.statsDir = (String) parser.getOptionValue(statsOption,
+            settings.statsDir);
+    settings.weightsFile = (String) parser.getOptionValue(weightsOption,
+            settings.weightsFile);
+    if ((Boolean) parser.getOptionValue(noWarmUpOption, Boolean.FALSE)) {
+      settings.warmUpTime = 0;
+    }
+    settings.asyncLog = !(Boolean) parser.getOptionValue(syncLogOption,
+            Boolean.FALSE);
+    settings.stateDecoder = !(Boolean) parser.getOptionValue(
+            xstreamStatesOption, Boolean.FALSE);
+    String engine = (String) parser.getOptionValue(engineOption, null);
+    if (engine != null) {
+      try {
+        settings.engine = Settings.Engine.valueOf(engine.toUpperCase()
+                .replace('-', '_'));
+      } catch (IllegalArgumentException e) {
+        showHelp("Unbekannte Engine: " + engine);
+        System.exit(2);
+      }
+    }
 
     // einen neuen client erzeugen
     try {
-      new Starter(host, port, reservation);
+      new Starter(host, port, reservation, settings);
     } catch (Exception e) {
       logger.error("Beim Starten den Clients ist ein Fehler aufgetreten:");
       //System.err
@@ -93,7 +219,18 @@ public class Starter extends AbstractClient {
             .println("Bitte das Programm mit folgenden Parametern (optional) aufrufen: \n"
                     + "java -jar hase_und_igel_player_new.jar [{-h,--host} hostname]\n"
                     + "                               [{-p,--port} port]\n"
-                    + "                               [{-r,--reservation} reservierung]");
+                    + "                               [{-r,--reservation} reservierung]\n"
+                    + "                               [--hash megabytes]\n"
+                    + "                               [{-t,--threads} threads]\n"
+                    + "                               [--no-ponder]\n"
+                    + "                               [{-e,--engine} alpha-beta|mcts|phase-logic]\n"
+                    + "                               [--endgame tabellendatei]\n"
+                    + "                               [--book eroeffnungsbuch]\n"
+                    + "                               [--stats statistikverzeichnis]\n"
+                    + "                               [--weights gewichtsdatei]\n"
+                    + "                               [--no-warmup]\n"
+                    + "                               [--sync-log]\n"
+                    + "                               [--xstream-states]");
     System.out.println();
     System.out
             .println("Beispiel: \n"
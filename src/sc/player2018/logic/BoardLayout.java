@@ -0,0 +1,89 @@
+package sc.player2018.logic;
+
+import java.util.Arrays;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+
+/**
+ * Targets of the phase logic that depend on the board layout, found once per
+ * game by {@link #analyze(BoardIndex)}.
+ */
+public class BoardLayout {
+	/** changes whenever the analysis does, layouts of other versions are analyzed again */
+	public static final int VERSION = 2;
+
+	public final long fingerprint;
+	/** salad field the early game aims at */
+	public final int firstSalad;
+	/** salad field where the mid game eats its salads */
+	public final int ownSalad;
+	/** hedgehog the mid game falls back to when our salad field is taken */
+	public final int fallbackField;
+	/** all position 1 and 2 fields, in order; the end game runs to them from anywhere on the board */
+	public final int[] endPositions;
+
+	BoardLayout(long fingerprint, int firstSalad, int ownSalad, int fallbackField, int[] endPositions) {
+		this.fingerprint = fingerprint;
+		this.firstSalad = firstSalad;
+		this.ownSalad = ownSalad;
+		this.fallbackField = fallbackField;
+		this.endPositions = endPositions;
+	}
+
+	public static BoardLayout analyze(BoardIndex board) {
+		int firstSalad = board.next(CompactState.SALAD, 0);
+		int ownSalad = board.next(CompactState.SALAD, firstSalad);
+		// two hedgehogs back, a position 2 field can be reached from there
+		int fallbackField = board.previous(CompactState.HEDGEHOG,
+				board.previous(CompactState.HEDGEHOG, ownSalad));
+		int[] endPositions = new int[BoardIndex.SIZE];
+		int count = 0;
+		for (int i = 0; i < BoardIndex.SIZE; i++) {
+			byte type = board.typeAt(i);
+			if (type == CompactState.POSITION_1 || type == CompactState.POSITION_2) {
+				endPositions[count++] = i;
+			}
+		}
+		return new BoardLayout(board.fingerprint(), firstSalad, ownSalad, fallbackField,
+				Arrays.copyOf(endPositions, count));
+	}
+
+	/**
+	 * @return whether a position field of the end game lies between the indices
+	 *         (both inclusive)
+	 */
+	public boolean hasEndPosition(int from, int to) {
+		for (int position : endPositions) {
+			if (position >= from && position <= to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return one line of the layout cache
+	 */
+	public String format() {
+		StringBuilder builder = new StringBuilder(Long.toHexString(fingerprint)).append(' ').append(firstSalad)
+				.append(' ').append(ownSalad).append(' ').append(fallbackField);
+		for (int position : endPositions) {
+			builder.append(' ').append(position);
+		}
+		return builder.toString();
+	}
+
+	public static BoardLayout parse(String line) {
+		String[] parts = line.trim().split("\\s+");
+		if (parts.length < 4) {
+			throw new IllegalArgumentException("Not a layout: " + line);
+		}
+		int[] endPositions = new int[parts.length - 4];
+		for (int i = 0; i < endPositions.length; i++) {
+			endPositions[i] = Integer.parseInt(parts[4 + i]);
+		}
+		return new BoardLayout(Long.parseUnsignedLong(parts[0], 16), Integer.parseInt(parts[1]),
+				Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), endPositions);
+	}
+}
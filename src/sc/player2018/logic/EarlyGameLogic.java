@@ -6,8 +6,8 @@
 
 package sc.player2018.logic;
 
-import java.util.ArrayList;
-
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.Weights;
 import sc.plugin2018.CardType;
 import sc.plugin2018.FieldType;
 import sc.plugin2018.GameState;
@@ -15,16 +15,15 @@ import sc.plugin2018.Move;
 import sc.plugin2018.Player;
 
 public class EarlyGameLogic {
-	static int SALAD_FIELD = 10;
-
-	public static Move getTurn(GameState gameState) {
+	public static Move getTurn(GameState gameState, BoardLayout layout, Weights weights,
+			MoveDescriptors possibleMoves) {
 		Player currentPlayer = gameState.getCurrentPlayer();
 		Player otherPlayer = gameState.getOtherPlayer();
-		ArrayList<Move> possibleMoves = gameState.getPossibleMoves();
+		BoardIndex board = possibleMoves.board;
 		MoveList baseList = new MoveList(possibleMoves, gameState);
 
 		if (currentPlayer.getFieldIndex() < otherPlayer.getFieldIndex()) {
-			if (gameState.getNextFieldByType(FieldType.HARE, currentPlayer.getFieldIndex()) < otherPlayer
+			if (board.getNextFieldByType(FieldType.HARE, currentPlayer.getFieldIndex()) < otherPlayer
 					.getFieldIndex()) {
 				Move selectedMove = baseList.select(CardType.EAT_SALAD).getNearest();
 				if (selectedMove != null) {
@@ -32,7 +31,7 @@ public class EarlyGameLogic {
 				}
 			}
 
-			if (SALAD_FIELD < otherPlayer.getFieldIndex()) {
+			if (layout.firstSalad < otherPlayer.getFieldIndex()) {
 				Move selectedMove = baseList.select(FieldType.SALAD).getNearest();
 				if (selectedMove != null) {
 					return selectedMove;
@@ -40,15 +39,15 @@ public class EarlyGameLogic {
 			}
 
 		}
-		if (currentPlayer.getCarrots() > 125) { // random value oriented on KvC, calculate a better one
-			if (!gameState.isOccupied(SALAD_FIELD)) {
+		if (currentPlayer.getCarrots() > weights.get(Weights.Term.EARLY_CARROTS)) { // oriented on KvC, see Weights
+			if (!gameState.isOccupied(layout.firstSalad)) {
 				Move selectedMove = baseList.select(FieldType.SALAD).getNearest();
 				if (selectedMove != null) {
 					return selectedMove;
 				}
 			}
 		}
-		if (gameState.getTypeAt(currentPlayer.getFieldIndex()) == FieldType.CARROT) {
+		if (board.getTypeAt(currentPlayer.getFieldIndex()) == FieldType.CARROT) {
 			Move selectedMove = baseList.getCarrotExchange(10);
 			if (selectedMove != null) {
 				return selectedMove;
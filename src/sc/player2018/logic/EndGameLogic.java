@@ -1,31 +1,29 @@
 package sc.player2018.logic;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-import sc.plugin2018.Action;
-import sc.plugin2018.Advance;
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.EndgameTable;
+import sc.player2018.search.EndgameTables;
+import sc.player2018.search.Moves;
+import sc.player2018.search.Weights;
 import sc.plugin2018.CardType;
-import sc.plugin2018.ExchangeCarrots;
-import sc.plugin2018.FallBack;
 import sc.plugin2018.FieldType;
 import sc.plugin2018.GameState;
 import sc.plugin2018.Move;
 import sc.plugin2018.Player;
 import sc.plugin2018.util.Constants;
-import sc.plugin2018.util.GameRuleLogic;
 
 public class EndGameLogic {
-	public static Move getTurn(GameState gameState) {
-		ArrayList<Move> possibleMoves = gameState.getPossibleMoves();
+	public static Move getTurn(GameState gameState, BoardLayout layout, Weights weights,
+			MoveDescriptors possibleMoves) {
 		Player currentPlayer = gameState.getCurrentPlayer();
 		int currentIndex = currentPlayer.getFieldIndex();
 		int carrots = currentPlayer.getCarrots();
+		BoardIndex board = possibleMoves.board;
 		MoveList baseList = new MoveList(possibleMoves, gameState);
 
 		if (currentIndex < 42) {
-			Move returnMove = getFurthestPosMove(possibleMoves, gameState, currentIndex);
+			Move returnMove = getFurthestPosMove(possibleMoves, gameState, layout);
 			if (returnMove != null) {
 				return returnMove;
 			}
@@ -34,7 +32,11 @@ public class EndGameLogic {
 				return returnMove;
 			}
 		} else {
-			if (gameState.getTypeAt(currentIndex) != FieldType.CARROT) {
+			Move tableMove = getTableMove(gameState, possibleMoves);
+			if (tableMove != null) {
+				return tableMove;
+			}
+			if (board.getTypeAt(currentIndex) != FieldType.CARROT) {
 				Move returnMove = baseList.select(FieldType.CARROT).deselect(CardType.HURRY_AHEAD)
 						.deselect(CardType.FALL_BACK).getFurthest();
 				if (returnMove != null) {
@@ -42,7 +44,7 @@ public class EndGameLogic {
 				}
 			} else {
 				int fieldsFromGoal = (Constants.NUM_FIELDS - 1) - currentIndex;
-				int carrotsNeeded = GameRuleLogic.calculateCarrots(fieldsFromGoal);
+				int carrotsNeeded = BoardIndex.carrotCost(fieldsFromGoal);
 				// we can't go into the goal or we would have already, let's figure out why
 				if (carrots >= carrotsNeeded) {
 					// we have enough carrots for moving to the goal, so we are having too many
@@ -74,95 +76,143 @@ public class EndGameLogic {
 				}
 			}
 
-			return getSimpleEndMove(possibleMoves, gameState, currentPlayer);
+			return getSimpleEndMove(possibleMoves, currentPlayer, weights);
 		}
 
 		return null;
 	}
 
-	private static Move getFurthestPosMove(ArrayList<Move> possibleMoves, GameState gameState, int currentIndex) {
-		List<Move> advanceMoves = new ArrayList<>();
+	/**
+	 * @return the move with the shortest distance to the goal in the endgame
+	 *         table, null if the table does not know the position
+	 */
+	private static Move getTableMove(GameState gameState, MoveDescriptors possibleMoves) {
+		EndgameTable table = EndgameTables.forBoard(possibleMoves.board);
+		CompactState state = CompactState.fromGameState(gameState, possibleMoves.board);
+		int best = -1;
+		int bestDistance = Integer.MAX_VALUE;
+		for (int i = 0; i < possibleMoves.size(); i++) {
+			int distance = table.distanceAfter(state, possibleMoves.encoded(i));
+			if (distance != EndgameTable.UNKNOWN && distance < bestDistance) {
+				bestDistance = distance;
+				best = i;
+			}
+		}
+		return best == -1 ? null : possibleMoves.move(best);
+	}
+
+	/**
+	 * Races to the goal with the endgame table if we are in it and surely faster
+	 * than the opponent, otherwise the search has to decide (he could block us, or
+	 * we have to stop him).
+	 *
+	 * @return the move with the shortest distance to the goal, {@link Moves#NONE}
+	 *         if the table should not decide
+	 */
+	public static int getTableMove(CompactState state, int[] moves, int count) {
+		int c = state.getCurrent();
+		if (state.getSalads(c) > 0 || state.getFieldIndex(c) < EndgameTable.FIRST_FIELD) {
+			return Moves.NONE;
+		}
+		EndgameTable table = EndgameTables.forBoard(state.getBoardIndex());
+		int own = table.distance(state.getFieldIndex(c), state.getCarrots(c),
+				(state.getCards(c) & CompactState.TAKE_OR_DROP_CARROTS) != 0);
+		int o = 1 - c;
+		int other;
+		if (state.getSalads(o) > 0) {
+			// no move eats more than one salad and the goal needs one more move; on
+			// a salad field or with the salad card a salad can take a single move
+			other = state.getSalads(o) + 1;
+		} else {
+			other = table.distance(state.getFieldIndex(o), state.getCarrots(o),
+					(state.getCards(o) & CompactState.TAKE_OR_DROP_CARROTS) != 0);
+		}
+		int turnsLeft = (2 * Constants.ROUND_LIMIT - state.getTurn() + 1) / 2;
+		if (own == EndgameTable.UNKNOWN || own > turnsLeft || other == EndgameTable.UNKNOWN || other <= own) {
+			return Moves.NONE;
+		}
+		return table.bestMove(state, moves, count);
+	}
+
+	private static Move getFurthestPosMove(MoveDescriptors possibleMoves, GameState gameState, BoardLayout layout) {
+		int currentIndex = possibleMoves.currentIndex;
+		if (!layout.hasEndPosition(currentIndex + 1,
+				currentIndex + BoardIndex.maxReach(gameState.getCurrentPlayer().getCarrots()))) {
+			return null;
+		}
 		int currentEnemyPos = gameState.getOtherPlayer().getFieldIndex();
-		int furthestEnemyPos = GameRuleLogic.calculateMoveableFields(gameState.getOtherPlayer().getCarrots())
+		int furthestEnemyPos = BoardIndex.maxReach(gameState.getOtherPlayer().getCarrots())
 				+ currentEnemyPos;
 
-		for (Move move : possibleMoves) {
-			Advance advance = LogicHelper.getAdvance(move);
-			if (advance != null) {
-				int destination = currentIndex + advance.getDistance();
-				if (gameState.getTypeAt(destination) == FieldType.POSITION_1) {
+		// the furthest of the position moves, the first one of those as far
+		int furthest = -1;
+		for (int i = 0; i < possibleMoves.size(); i++) {
+			if (possibleMoves.distance(i) > 0
+					&& (furthest == -1 || possibleMoves.distance(i) > possibleMoves.distance(furthest))) {
+				int destination = possibleMoves.destination(i);
+				if (possibleMoves.getDestinationType(i) == FieldType.POSITION_1) {
 					if (destination >= furthestEnemyPos) {
-						advanceMoves.add(move);
+						furthest = i;
 					}
-				} else if (gameState.getTypeAt(destination) == FieldType.POSITION_2) {
+				} else if (possibleMoves.getDestinationType(i) == FieldType.POSITION_2) {
 					if (destination < currentEnemyPos) {
-						advanceMoves.add(move);
+						furthest = i;
 					}
 				}
 			}
 		}
-
-		if (advanceMoves.size() > 0) {
-			Collections.sort(advanceMoves, LogicHelper.highestDistanceComparator);
-			return advanceMoves.get(0);
-		}
-
-		return null;
+		return furthest == -1 ? null : possibleMoves.move(furthest);
 	}
 
-	private static int getEndMoveRating(Move move, GameState gameState, Player currentPlayer) {
+	private static int getEndMoveRating(MoveDescriptors moves, int i, Player currentPlayer, Weights weights) {
 		// method is used if nothing else could be found or an emergency emerges
-		for (Action action : move.actions) {
-			if (action instanceof Advance) {
-				Advance advance = (Advance) action;
-				if (advance.getDistance() + currentPlayer.getFieldIndex() == Constants.NUM_FIELDS - 1) {
-					// winning move
-					return Integer.MAX_VALUE;
+		int distance = moves.distance(i);
+		if (distance > 0) {
+			if (moves.destination(i) == Constants.NUM_FIELDS - 1) {
+				// winning move
+				return Integer.MAX_VALUE;
 
-				} else {
-					// complicated formula for calculating some semi-random bullcrap
-					int carrotsNeeded = (int) ((advance.getDistance() + 1) * ((float) advance.getDistance() / 2));
-					int awayFromGoalAfter = Constants.NUM_FIELDS
-							- (currentPlayer.getFieldIndex() + advance.getDistance() + 1);
-					int carrotsNeededToGoal = (int) ((awayFromGoalAfter + 1) * ((float) awayFromGoalAfter / 2))
-							+ carrotsNeeded;
-					int carrotsLeftAfter = (currentPlayer.getCarrots() - carrotsNeededToGoal);
-					if (carrotsLeftAfter < 10 && carrotsLeftAfter > 0) {
-						if (gameState
-								.getTypeAt(currentPlayer.getFieldIndex() + advance.getDistance()) == FieldType.CARROT) {
-							return 10;
-						}
+			} else {
+				// complicated formula for calculating some semi-random bullcrap
+				int carrotsNeeded = BoardIndex.carrotCost(distance);
+				int awayFromGoalAfter = Constants.NUM_FIELDS - (moves.destination(i) + 1);
+				int carrotsNeededToGoal = BoardIndex.carrotCost(awayFromGoalAfter) + carrotsNeeded;
+				int carrotsLeftAfter = (currentPlayer.getCarrots() - carrotsNeededToGoal);
+				if (carrotsLeftAfter < 10 && carrotsLeftAfter > 0) {
+					if (moves.getDestinationType(i) == FieldType.CARROT) {
+						return weights.get(Weights.Term.END_CARROT_FIELD);
 					}
-					return advance.getDistance() - 2;
-				}
-			} else if (action instanceof ExchangeCarrots) {
-				ExchangeCarrots exchangeCarrots = (ExchangeCarrots) action;
-				if (((currentPlayer.getCarrots() < 30 && currentPlayer.getFieldIndex() < 56)
-						|| (currentPlayer.getFieldIndex() > 56 && currentPlayer.getCarrots() <= 10))
-						&& exchangeCarrots.getValue() == 10) {
-					// do not take carrots in end game
-					return 2;
-				} else if (exchangeCarrots.getValue() == -10 && currentPlayer.getCarrots() > 30) {
-					// only remove carrots if at end
-					return 1;
-				}
-			} else if (action instanceof FallBack) {
-				if (currentPlayer.getCarrots() < 10 && currentPlayer.getFieldIndex()
-						- gameState.getPreviousFieldByType(FieldType.HEDGEHOG, currentPlayer.getFieldIndex()) < 5) {
-					// go back scarcely
-					return -1;
 				}
+				return distance - weights.get(Weights.Term.END_ADVANCE_OFFSET);
+			}
+		} else if (moves.exchange(i) != 0) {
+			int exchange = moves.exchange(i);
+			if (((currentPlayer.getCarrots() < 30 && currentPlayer.getFieldIndex() < 56)
+					|| (currentPlayer.getFieldIndex() > 56 && currentPlayer.getCarrots() <= 10)) && exchange == 10) {
+				// do not take carrots in end game
+				return weights.get(Weights.Term.END_TAKE_CARROTS);
+			} else if (exchange == -10 && currentPlayer.getCarrots() > 30) {
+				// only remove carrots if at end
+				return weights.get(Weights.Term.END_DROP_CARROTS);
+			}
+		} else if (moves.isFallBack(i)) {
+			if (currentPlayer.getCarrots() < 10 && currentPlayer.getFieldIndex()
+					- moves.board.getPreviousFieldByType(FieldType.HEDGEHOG, currentPlayer.getFieldIndex()) < 5) {
+				// go back scarcely
+				return weights.get(Weights.Term.END_FALL_BACK);
 			}
 		}
 		return Integer.MIN_VALUE;
 	}
 
-	private static Move getSimpleEndMove(ArrayList<Move> possibleMoves, GameState gameState, Player currentPlayer) {
+	private static Move getSimpleEndMove(MoveDescriptors possibleMoves, Player currentPlayer, Weights weights) {
 		Move selectedMove = new Move();
 		int highestRating = -1;
-		for (Move move : possibleMoves) {
-			if (getEndMoveRating(move, gameState, currentPlayer) > highestRating) {
-				selectedMove = move;
+		for (int i = 0; i < possibleMoves.size(); i++) {
+			int rating = getEndMoveRating(possibleMoves, i, currentPlayer, weights);
+			if (rating > highestRating) {
+				selectedMove = possibleMoves.move(i);
+				highestRating = rating;
 			}
 		}
 		return selectedMove;
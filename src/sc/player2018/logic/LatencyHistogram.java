@@ -0,0 +1,115 @@
+package sc.player2018.logic;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations in microseconds with buckets growing like in an HDR
+ * histogram: exact below 32, above that every power of two is split into 16
+ * buckets, so every value is known to about 6%. Recording is one array
+ * increment, nothing is allocated.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int HALF = SUB_BUCKETS / 2;
+	// durations up to 2^35 microseconds, more than enough for a game
+	private static final int MAX_SHIFT = 35 - SUB_BITS + 1;
+	private static final int BUCKETS = SUB_BUCKETS + MAX_SHIFT * HALF;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long sum;
+	private long max;
+
+	/**
+	 * @param nanos
+	 *            duration in nanoseconds, recorded in microseconds
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		counts[bucket(micros)]++;
+		count++;
+		sum += micros;
+		max = Math.max(max, micros);
+	}
+
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = Math.min(63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1, MAX_SHIFT);
+		int sub = (int) Math.min(value >>> shift, SUB_BUCKETS - 1) - HALF;
+		return SUB_BUCKETS + (shift - 1) * HALF + sub;
+	}
+
+	/**
+	 * @return largest value that falls into the bucket
+	 */
+	private static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket - SUB_BUCKETS) / HALF + 1;
+		long sub = (bucket - SUB_BUCKETS) % HALF + HALF;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public long getMean() {
+		return count == 0 ? 0 : sum / count;
+	}
+
+	/**
+	 * @param percentile
+	 *            between 0 and 100
+	 * @return value in microseconds that the given percentage of the recorded
+	 *         values does not exceed, 0 if nothing was recorded
+	 */
+	public long getPercentile(double percentile) {
+		long wanted = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= wanted) {
+				return Math.min(highestValue(i), max);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds all values recorded in the other histogram
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	/**
+	 * @return count, mean, median, 90th and 99th percentile and maximum in
+	 *         microseconds
+	 */
+	@Override
+	public String toString() {
+		return "n=" + count + " mean=" + getMean() + " p50=" + getPercentile(50) + " p90=" + getPercentile(90)
+				+ " p99=" + getPercentile(99) + " max=" + max;
+	}
+}
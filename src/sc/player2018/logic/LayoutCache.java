@@ -0,0 +1,83 @@
+package sc.player2018.logic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.search.BoardIndex;
+
+/**
+ * {@link BoardLayout}s by fingerprint of the board. Layouts are analyzed the
+ * first time a board is seen and appended to the file, one line each, so a
+ * board that comes up again in a later game is not analyzed again. The first
+ * line holds the {@link BoardLayout#VERSION}, a file of another version is
+ * started anew.
+ */
+public class LayoutCache {
+	private static final Logger log = LoggerFactory.getLogger(LayoutCache.class);
+	private static final String HEADER = "version " + BoardLayout.VERSION;
+
+	// null if the cache is only kept in memory
+	private final Path file;
+	private final Map<Long, BoardLayout> layouts = new HashMap<>();
+
+	public LayoutCache(Path file) {
+		this.file = file;
+		if (file != null && Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				String line = reader.readLine();
+				if (!HEADER.equals(line)) {
+					log.info("Layout cache has another version, the layouts are analyzed again");
+					reader.close();
+					Files.delete(file);
+					return;
+				}
+				while ((line = reader.readLine()) != null) {
+					if (!line.trim().isEmpty()) {
+						BoardLayout layout = BoardLayout.parse(line);
+						layouts.put(layout.fingerprint, layout);
+					}
+				}
+			} catch (IOException | IllegalArgumentException e) {
+				log.warn("Layout cache could not be read: {}", e.getMessage());
+			}
+		}
+	}
+
+	public synchronized BoardLayout get(BoardIndex board) {
+		BoardLayout layout = layouts.get(board.fingerprint());
+		if (layout != null) {
+			return layout;
+		}
+		layout = BoardLayout.analyze(board);
+		layouts.put(layout.fingerprint, layout);
+		if (file != null) {
+			boolean created = !Files.exists(file);
+			try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND)) {
+				if (created) {
+					writer.write(HEADER);
+					writer.write(System.lineSeparator());
+				}
+				writer.write(layout.format());
+				writer.write(System.lineSeparator());
+			} catch (IOException e) {
+				log.warn("Layout cache could not be written: {}", e.getMessage());
+			}
+		}
+		return layout;
+	}
+
+	public synchronized int size() {
+		return layouts.size();
+	}
+}
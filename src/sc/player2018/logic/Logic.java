@@ -1,13 +1,29 @@
 package sc.player2018.logic;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.SecureRandom;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Random;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sc.player2018.GameLog;
+import sc.player2018.Settings;
 import sc.player2018.Starter;
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.Mcts;
+import sc.player2018.search.MoveGenerator;
+import sc.player2018.search.OpeningBook;
+import sc.player2018.search.Moves;
+import sc.player2018.search.ParallelSearch;
+import sc.player2018.search.Ponderer;
+import sc.player2018.search.Weights;
 import sc.plugin2018.*;
 import sc.plugin2018.util.Constants;
 import sc.shared.PlayerColor;
@@ -18,58 +34,205 @@ import sc.shared.GameResult;
  */
 public class Logic implements IGameHandler {
 
-	private Starter client;
+	// sends our moves, to the server or to whatever runs the game
+	private final Consumer<Move> sender;
 	private GameState gameState;
 	private Player currentPlayer;
+	// known after the first state, needed to recognize the turns of the opponent
+	private PlayerColor ownColor;
+	// the board does not change during a game, it is indexed once
+	private BoardIndex boardIndex;
+	private BoardLayout layout;
+	private final LayoutCache layouts;
 
 	private static final Logger log = LoggerFactory.getLogger(Logic.class);
 	private static final Random rand = new SecureRandom();
 
+	// only one of the engines is created, the other one is null; both are null
+	// if only the phase logic decides
+	private final ParallelSearch search;
+	private final Mcts mcts;
+	// null if pondering is switched off
+	private final Ponderer ponderer;
+	private final TimeManager timeManager;
+	private final Weights weights;
+	// fixed depth of the search, 0 to search by the clock
+	private final int searchDepth;
+	private final TurnStats stats = new TurnStats();
+	// directory the summary of every game is written to, null to not write it
+	private final Path statsDir;
+	// time the last game state was received, the server starts our clock before
+	// sending it
+	private long updateTime;
+	private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+
 	public Logic(Starter client) {
-		this.client = client;
+		this(client, new Settings());
+	}
+
+	public Logic(Starter client, Settings settings) {
+		this(client::sendMove, settings);
+	}
+
+	/**
+	 * @param sender
+	 *            receives every move the logic decides on
+	 */
+	public Logic(Consumer<Move> sender, Settings settings) {
+		this.sender = sender;
+		this.timeManager = new TimeManager(settings.moveTime * 1000000L);
+		this.weights = settings.weights;
+		this.searchDepth = settings.searchDepth;
+		this.layouts = new LayoutCache(settings.layoutCache == null ? null : Paths.get(settings.layoutCache));
+		this.statsDir = settings.statsDir == null ? null : Paths.get(settings.statsDir);
+		if (settings.engine == Settings.Engine.MCTS) {
+			// the tree is reused between turns, there is nothing to ponder on
+			this.search = null;
+			this.mcts = new Mcts(Mcts.DEFAULT_CAPACITY, settings.weights);
+			this.ponderer = null;
+		} else if (settings.engine == Settings.Engine.PHASE_LOGIC) {
+			this.search = null;
+			this.mcts = null;
+			this.ponderer = null;
+		} else {
+			this.search = new ParallelSearch(settings.tableSize, settings.threads, settings.weights);
+			this.mcts = null;
+			this.ponderer = settings.ponder ? new Ponderer(search) : null;
+		}
 	}
 
 	public void gameEnded(GameResult data, PlayerColor color, String errorMessage) {
-		log.info("Das Spiel ist beendet.");
+		if (ponderer != null) {
+			ponderer.stop();
+		}
+		boardIndex = null;
+		layout = null;
+		GameLog.log(GameLog.Event.GAME_ENDED);
+		writeStats();
 	}
 
-	private boolean endIfPossible(Move move, long startTime) {
+	/**
+	 * Writes the summary of the game that has ended, the next game starts with
+	 * empty statistics
+	 */
+	private void writeStats() {
+		if (statsDir != null && stats.getTurns() > 0) {
+			String name = "game-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + "-"
+					+ ownColor + ".txt";
+			try {
+				stats.write(statsDir.resolve(name));
+			} catch (IOException e) {
+				log.warn("Statistics could not be written: {}", e.getMessage());
+			}
+		}
+		for (String line : stats.summary()) {
+			log.info(line);
+		}
+		stats.reset();
+	}
+
+	private boolean endIfPossible(Move move, TurnStats.Source source, long startTime, long filterStart) {
 		if (move != null) {
+			stats.record(TurnStats.Stage.FILTER, filterStart);
 			move.orderActions();
-			sendAction(move);
-			LogicHelper.prepareEnd(startTime, log);
+			finishTurn(move, source, startTime);
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Sends the move and records how long the turn took and what decided on it
+	 */
+	private void finishTurn(Move move, TurnStats.Source source, long startTime) {
+		sendAction(move);
+		stats.endTurn(source, startTime);
+		LogicHelper.prepareEnd(startTime);
+	}
+
 	@Override
 	public void onRequestAction() {
 		int currentIndex = currentPlayer.getFieldIndex();
-		long startTime = System.nanoTime();
-		log.info("Es wurde ein Zug angefordert.");
-		ArrayList<Move> possibleMoves = gameState.getPossibleMoves();
+		long startTime = updateTime != 0 ? updateTime : System.nanoTime();
+		if (ponderer != null) {
+			// never search twice at the same time
+			ponderer.stop();
+		}
+		GameLog.log(GameLog.Event.REQUEST);
+		long generateStart = System.nanoTime();
+		CompactState state = currentState();
+		int moveCount = MoveGenerator.generate(state, moveBuffer, 0);
+		stats.record(TurnStats.Stage.GENERATE, generateStart);
+		timeManager.startTurn(startTime, state, moveCount);
 		// debugging
 		if (gameState.getRound() == 0) {
-			System.out.println("We are color: " + currentPlayer.getPlayerColor());
-		}
-
-		for (Move move : possibleMoves) {
-			for (Action action : move.actions) {
-				if (action instanceof Advance) {
-					Advance advance = (Advance) action;
-					if (advance.getDistance() + currentIndex == Constants.NUM_FIELDS - 1) {
-						// winning move
-						move.orderActions();
-						sendAction(move);
-						LogicHelper.prepareEnd(startTime, log);
-						return;
-					}
-				}
+			GameLog.log(GameLog.Event.OWN_COLOR, currentPlayer.getPlayerColor().ordinal());
+		}
+
+		int bookMove = OpeningBook.probe(state);
+		for (int i = 0; i < moveCount; i++) {
+			if (moveBuffer[i] == bookMove) {
+				// known from the offline search, the book only has legal moves of the
+				// position but the key could collide
+				finishTurn(Moves.toMove(bookMove), TurnStats.Source.BOOK, startTime);
+				return;
+			}
+		}
+
+		for (int i = 0; i < moveCount; i++) {
+			int move = moveBuffer[i];
+			if (Moves.type(move) == Moves.ADVANCE && Moves.distance(move) + currentIndex == Constants.NUM_FIELDS - 1) {
+				// winning move
+				finishTurn(Moves.toMove(move), TurnStats.Source.WIN, startTime);
+				return;
 			}
 		}
+
+		long searchStart = System.nanoTime();
+		int tableMove = EndGameLogic.getTableMove(state, moveBuffer, moveCount);
+		if (tableMove != Moves.NONE) {
+			// the race to the goal is solved, nothing to search
+			stats.record(TurnStats.Stage.SEARCH, searchStart);
+			finishTurn(Moves.toMove(tableMove), TurnStats.Source.TABLE, startTime);
+			return;
+		}
+
+		if (mcts != null) {
+			// playouts do not get any better by stopping early, use all the time
+			int move = mcts.findMove(state, timeManager.getHardDeadline());
+			stats.record(TurnStats.Stage.SEARCH, searchStart);
+			finishTurn(Moves.toMove(move), TurnStats.Source.MCTS, startTime);
+			return;
+		}
+
+		if (search != null) {
+			int ponderMove = ponderer != null ? ponderer.getMove(state) : Moves.NONE;
+			int searchedMove = searchDepth > 0 ? search.findMove(state, searchDepth)
+					: search.findMove(state, timeManager.getSoftDeadline(), timeManager.getHardDeadline());
+			TurnStats.Source source = TurnStats.Source.SEARCH;
+			if (ponderMove != Moves.NONE && (searchedMove == Moves.NONE || ponderer.getDepth() > search.getCompletedDepth())) {
+				// pondering got further than the search in our own time
+				searchedMove = ponderMove;
+				source = TurnStats.Source.PONDER;
+			}
+			stats.record(TurnStats.Stage.SEARCH, searchStart);
+			if (searchedMove != Moves.NONE) {
+				sendAction(Moves.toMove(searchedMove));
+				stats.endTurn(source, startTime);
+				LogicHelper.prepareEnd(startTime, search.getTable());
+				return;
+			}
+			GameLog.log(GameLog.Event.SEARCH_FALLBACK);
+			stats.countFallback();
+		}
+
+		// the phase logic works on the descriptors, move objects are only created
+		// for the move it picks
+		long filterStart = System.nanoTime();
+		MoveDescriptors possibleMoves = new MoveDescriptors(moveBuffer, moveCount, boardIndex, currentIndex);
 		if (gameState.getRound() == Constants.ROUND_LIMIT - 2) {
-			if (endIfPossible(new MoveList(possibleMoves,gameState).getFurthest(), startTime)) {
+			if (endIfPossible(new MoveList(possibleMoves, gameState).getFurthest(), TurnStats.Source.ROUND_LIMIT,
+					startTime, filterStart)) {
 				return;
 			}
 		}
@@ -77,49 +240,86 @@ public class Logic implements IGameHandler {
 		if (currentPlayer.getSalads() > 0) {
 			if (currentIndex < 10) {
 				// before field 10 is early-game
-				if(endIfPossible(EarlyGameLogic.getTurn(gameState),startTime)) {
+				if(endIfPossible(EarlyGameLogic.getTurn(gameState, layout, weights, possibleMoves), TurnStats.Source.EARLY_GAME,
+						startTime, filterStart)) {
 					return;
 				}
 			} else {
-				if(endIfPossible(MidGameLogic.getTurn(gameState),startTime)) {
+				if(endIfPossible(MidGameLogic.getTurn(gameState, layout, possibleMoves), TurnStats.Source.MID_GAME,
+						startTime, filterStart)) {
 					return;
 				}
 			}
 		} else {
 			// there are no salads left, we are in end-game
-			if (endIfPossible(EndGameLogic.getTurn(gameState), startTime)) {
+			if (endIfPossible(EndGameLogic.getTurn(gameState, layout, weights, possibleMoves), TurnStats.Source.END_GAME,
+					startTime, filterStart)) {
 				return;
 			}
 		}
 
-		log.warn("Falling back to simple logic");
-		Move defaultMove = LogicHelper.getSimpleMove(possibleMoves, gameState, currentPlayer);
+		GameLog.log(GameLog.Event.SIMPLE_FALLBACK);
+		Move defaultMove = LogicHelper.getSimpleMove(possibleMoves, currentPlayer, weights);
 		defaultMove.orderActions();
-		sendAction(defaultMove);
-		LogicHelper.prepareEnd(startTime, log);
+		stats.record(TurnStats.Stage.FILTER, filterStart);
+		finishTurn(defaultMove, TurnStats.Source.SIMPLE, startTime);
 	}
 
 	@Override
 	public void onUpdate(Player player, Player otherPlayer) {
 		currentPlayer = player;
-		log.info("Spielerwechsel: " + player.getPlayerColor());
+		ownColor = player.getPlayerColor();
+		GameLog.log(GameLog.Event.PLAYER_CHANGE, player.getPlayerColor().ordinal());
 	}
 
 	@Override
 	public void onUpdate(GameState gameState) {
+		updateTime = System.nanoTime();
 		this.gameState = gameState;
+		if (boardIndex == null) {
+			CompactState decoded = StateDecoder.getDecoded(gameState);
+			boardIndex = decoded != null ? decoded.getBoardIndex() : BoardIndex.of(gameState.getBoard());
+			layout = layouts.get(boardIndex);
+		}
 		currentPlayer = gameState.getCurrentPlayer();
-		log.info("Das Spiel geht voran: Zug: {}", gameState.getTurn());
-		log.info("Spieler: {}", currentPlayer.getPlayerColor());
+		GameLog.log(GameLog.Event.UPDATE, gameState.getTurn());
+		GameLog.log(GameLog.Event.CURRENT_PLAYER, currentPlayer.getPlayerColor().ordinal());
+		if (ponderer != null) {
+			if (ownColor != null && currentPlayer.getPlayerColor() != ownColor) {
+				ponderer.start(currentState());
+			} else {
+				ponderer.stop();
+			}
+		}
+	}
+
+	/**
+	 * @return the current game state as compact state, taken from the
+	 *         {@link StateDecoder} if it read the game state from the server
+	 */
+	private CompactState currentState() {
+		CompactState decoded = StateDecoder.getDecoded(gameState);
+		return decoded != null ? decoded : CompactState.fromGameState(gameState, boardIndex);
+	}
+
+	/**
+	 * @return statistics of the turns of the current game
+	 */
+	public TurnStats getStats() {
+		return stats;
 	}
 
 	@Override
 	public void sendAction(Move move) {
 		if (move.actions.size() < 1) {
-			log.error("EMERGENCY MOVE");
-			log.error("Had {} selected", move.toString());
-			move = gameState.getPossibleMoves().get(rand.nextInt(gameState.getPossibleMoves().size()));
+			GameLog.log(GameLog.Event.EMERGENCY);
+			stats.countEmergency();
+			int moveCount = MoveGenerator.generate(currentState(), moveBuffer, 0);
+			move = Moves.toMove(moveBuffer[rand.nextInt(moveCount)]);
 		}
-		client.sendMove(move);
+		long sendStart = System.nanoTime();
+		sender.accept(move);
+		stats.record(TurnStats.Stage.SEND, sendStart);
+		timeManager.endTurn(System.nanoTime());
 	}
 }
\ No newline at end of file
@@ -1,7 +1,5 @@
 package sc.player2018.logic;
 
-import java.util.ArrayList;
-
 import sc.plugin2018.CardType;
 import sc.plugin2018.FieldType;
 import sc.plugin2018.GameState;
@@ -15,27 +13,24 @@ public class MidGameLogic {
 	 * field.
 	 */
 
-	private static int SALAD_FIELD = 22; // 22 is OUR salad field
-	private static int FALLBACK_FIELD = 15;
-	
-	public static Move getTurn(GameState gameState) {
+	// our salad field and where to fall back to come from the layout
+	public static Move getTurn(GameState gameState, BoardLayout layout, MoveDescriptors possibleMoves) {
 		Player currentPlayer = gameState.getCurrentPlayer();
 		int currentIndex = currentPlayer.getFieldIndex();
-		ArrayList<Move> possibleMoves = gameState.getPossibleMoves();
-		MoveList baseList = new MoveList(possibleMoves,gameState);
+		MoveList baseList = new MoveList(possibleMoves, gameState);
 		// if we can eat a salad, we should
 		Move returnMove = baseList.getSaladEat();
 		if(returnMove != null) {
 			return returnMove;
 		}
-		if (currentIndex >= 22) {
+		if (currentIndex >= layout.ownSalad) {
 			// go back, you have salads to eat!
 			returnMove = baseList.getFallback();
 			if(returnMove != null) {
 				return returnMove;
 			}
 		} else {
-			if (!gameState.isOccupied(SALAD_FIELD)) {
+			if (!gameState.isOccupied(layout.ownSalad)) {
 				returnMove = baseList.select(FieldType.SALAD).getNearest();
 				if(returnMove != null) {
 					return returnMove;
@@ -45,7 +40,7 @@ public class MidGameLogic {
 					return returnMove;
 				}
 			} else {
-				if (currentIndex == FALLBACK_FIELD) {
+				if (currentIndex == layout.fallbackField) {
 					returnMove = baseList.select(FieldType.POSITION_2).getNearest();
 					if(returnMove != null) {
 						return returnMove;
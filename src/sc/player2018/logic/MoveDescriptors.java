@@ -0,0 +1,153 @@
+package sc.player2018.logic;
+
+import java.util.List;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.Moves;
+import sc.plugin2018.CardType;
+import sc.plugin2018.FieldType;
+import sc.plugin2018.Move;
+
+/**
+ * The possible moves of one turn, each decoded once into the numbers the phase
+ * logic asks about: the encoded move (distance, first card, type, see
+ * {@link Moves}), the destination and its type and the set of cards played.
+ * Built once per turn and shared by everything that looks at the moves, so no
+ * one has to walk the actions of a {@link Move} again. Move objects are only
+ * created for the moves that are asked for.
+ */
+public class MoveDescriptors {
+	private static final FieldType[] FIELD_TYPES = FieldType.values();
+
+	public final BoardIndex board;
+	/** field of the player to move */
+	public final int currentIndex;
+
+	private final Move[] moves;
+	private final int[] encoded;
+	// field after the advance, the current field for moves that do not advance
+	private final int[] destination;
+	private final byte[] destinationType;
+	// bits of the codes of all cards played in the move
+	private final int[] cards;
+
+	public MoveDescriptors(List<Move> moves, BoardIndex board, int currentIndex) {
+		this(moves.size(), board, currentIndex);
+		for (int i = 0; i < encoded.length; i++) {
+			this.moves[i] = moves.get(i);
+			decode(i, Moves.fromMove(moves.get(i)));
+		}
+	}
+
+	/**
+	 * @param moves
+	 *            encoded moves, they are copied
+	 */
+	public MoveDescriptors(int[] moves, int count, BoardIndex board, int currentIndex) {
+		this(count, board, currentIndex);
+		for (int i = 0; i < count; i++) {
+			decode(i, moves[i]);
+		}
+	}
+
+	private MoveDescriptors(int size, BoardIndex board, int currentIndex) {
+		this.board = board;
+		this.currentIndex = currentIndex;
+		this.moves = new Move[size];
+		this.encoded = new int[size];
+		this.destination = new int[size];
+		this.destinationType = new byte[size];
+		this.cards = new int[size];
+	}
+
+	private void decode(int i, int move) {
+		encoded[i] = move;
+		destination[i] = currentIndex + Moves.distance(move);
+		destinationType[i] = board.typeAt(destination[i]);
+		for (int c = 0; c < Moves.MAX_CARDS && Moves.card(move, c) != 0; c++) {
+			cards[i] |= 1 << Moves.card(move, c);
+		}
+	}
+
+	public int size() {
+		return encoded.length;
+	}
+
+	/**
+	 * @return the move, created from the encoded move when it is asked for first
+	 */
+	public Move move(int i) {
+		if (moves[i] == null) {
+			moves[i] = Moves.toMove(encoded[i]);
+		}
+		return moves[i];
+	}
+
+	public int encoded(int i) {
+		return encoded[i];
+	}
+
+	/**
+	 * @return fields advanced, 0 if the move does not advance
+	 */
+	public int distance(int i) {
+		return Moves.type(encoded[i]) == Moves.ADVANCE ? Moves.distance(encoded[i]) : 0;
+	}
+
+	public int destination(int i) {
+		return destination[i];
+	}
+
+	/**
+	 * @return ordinal of the {@link FieldType} of the destination
+	 */
+	public byte destinationType(int i) {
+		return destinationType[i];
+	}
+
+	public FieldType getDestinationType(int i) {
+		return FIELD_TYPES[destinationType[i]];
+	}
+
+	/**
+	 * @return code of the first card played (see {@link Moves}), 0 without card
+	 */
+	public int card(int i) {
+		return Moves.card(encoded[i], 0);
+	}
+
+	/**
+	 * @return type of the first card played, null without card
+	 */
+	public CardType getCardType(int i) {
+		return card(i) == 0 ? null : Moves.cardType(card(i));
+	}
+
+	public int getCardValue(int i) {
+		return Moves.cardValue(card(i));
+	}
+
+	/**
+	 * @return whether any card of the move has the code
+	 */
+	public boolean playsCard(int i, int card) {
+		return (cards[i] & 1 << card) != 0;
+	}
+
+	/**
+	 * @return carrots taken (10) or dropped (-10), 0 if the move does not
+	 *         exchange carrots
+	 */
+	public int exchange(int i) {
+		int type = Moves.type(encoded[i]);
+		return type == Moves.TAKE_CARROTS ? 10 : type == Moves.DROP_CARROTS ? -10 : 0;
+	}
+
+	public boolean isEatSalad(int i) {
+		return Moves.type(encoded[i]) == Moves.EAT_SALAD;
+	}
+
+	public boolean isFallBack(int i) {
+		return Moves.type(encoded[i]) == Moves.FALL_BACK;
+	}
+}
@@ -1,133 +1,114 @@
 package sc.player2018.logic;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import sc.plugin2018.Action;
-import sc.plugin2018.Advance;
-import sc.plugin2018.Card;
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.Moves;
 import sc.plugin2018.CardType;
-import sc.plugin2018.EatSalad;
-import sc.plugin2018.ExchangeCarrots;
-import sc.plugin2018.FallBack;
 import sc.plugin2018.FieldType;
 import sc.plugin2018.GameState;
 import sc.plugin2018.Move;
 
+/**
+ * Query on the possible moves of a turn, on their {@link MoveDescriptors};
+ * select and deselect only narrow down the filter and share the descriptors,
+ * all filters are applied together when a result is asked for. The results are
+ * the same as sorting the moves stably and taking the element at the index.
+ */
 public class MoveList {
+	private static final int ALL = -1;
 
-	public List<Move> moves = new ArrayList<Move>();
-	public GameState gameState;
-	private int currentIndex = -1;
+	public final GameState gameState;
+	public final BoardIndex board;
+	private final MoveDescriptors descriptors;
+	// destination types (bits of the ordinal) an advancing move may have
+	private final int destinations;
+	// whether moves without advance are filtered out
+	private final boolean advanceOnly;
+	// card codes (bits, bit 0 for no card) the first card may have
+	private final int cards;
 
-	public MoveList(List<Move> moves, GameState gameState) {
-		this.moves = moves;
+	public MoveList(List<Move> moves, GameState gameState, BoardIndex board) {
+		this(new MoveDescriptors(moves, board, gameState.getCurrentPlayer().getFieldIndex()), gameState);
+	}
+
+	public MoveList(MoveDescriptors moves, GameState gameState) {
+		this(moves, gameState, ALL, false, ALL);
+	}
+
+	private MoveList(MoveDescriptors descriptors, GameState gameState, int destinations, boolean advanceOnly,
+			int cards) {
+		this.descriptors = descriptors;
 		this.gameState = gameState;
-		this.currentIndex = gameState.getCurrentPlayer().getFieldIndex();
+		this.board = descriptors.board;
+		this.destinations = destinations;
+		this.advanceOnly = advanceOnly;
+		this.cards = cards;
+	}
+
+	/**
+	 * @return the moves passing all filters, in their original order
+	 */
+	public List<Move> getMoves() {
+		List<Move> moves = new ArrayList<>();
+		for (int i = 0; i < descriptors.size(); i++) {
+			if (accepts(i)) {
+				moves.add(descriptors.move(i));
+			}
+		}
+		return moves;
 	}
 
 	public static MoveList add(MoveList m1, MoveList m2) {
-		List<Move> merge = new ArrayList<Move>(m1.moves);
-		merge.addAll(m2.moves);
+		List<Move> merge = m1.getMoves();
+		merge.addAll(m2.getMoves());
 		merge = merge.stream().distinct().collect(Collectors.toList());
-		return new MoveList(merge, m1.gameState);
+		return new MoveList(merge, m1.gameState, m1.board);
 	}
 
-	public MoveList deselect(FieldType fieldType) {
-		List<Move> selectedMoves = new ArrayList<Move>();
-		for (Move move : this.moves) {
-			Advance advance = getAdvance(move);
-			if (advance != null) {
-				int destination = this.currentIndex + advance.getDistance();
-				if (this.gameState.getTypeAt(destination) != fieldType) {
-					selectedMoves.add(move);
-				}
-			} else {
-				selectedMoves.add(move);
+	private boolean accepts(int i) {
+		if (descriptors.distance(i) == 0) {
+			if (advanceOnly) {
+				return false;
 			}
+		} else if ((destinations & 1 << descriptors.destinationType(i)) == 0) {
+			return false;
 		}
-		return new MoveList(selectedMoves, this.gameState);
+		return (cards & 1 << descriptors.card(i)) != 0;
+	}
+
+	private MoveList with(int destinations, boolean advanceOnly, int cards) {
+		return new MoveList(descriptors, gameState, destinations, advanceOnly, cards);
+	}
+
+	public MoveList deselect(FieldType fieldType) {
+		return with(destinations & ~(1 << fieldType.ordinal()), advanceOnly, cards);
 	}
 
 	public MoveList select(FieldType fieldType) {
-		List<Move> selectedMoves = new ArrayList<Move>();
-		for (Move move : this.moves) {
-			Advance advance = getAdvance(move);
-			if (advance != null) {
-				int destination = this.currentIndex + advance.getDistance();
-				if (this.gameState.getTypeAt(destination) == fieldType) {
-					selectedMoves.add(move);
-				}
-			}
-		}
-		return new MoveList(selectedMoves, this.gameState);
+		return with(destinations & 1 << fieldType.ordinal(), true, cards);
 	}
 
 	public MoveList deselect(CardType cardType) {
-		List<Move> selectedMoves = new ArrayList<Move>();
-		for (Move move : this.moves) {
-			Card card = getCard(move);
-			if (card != null) {
-				if (card.getType() != cardType) {
-					selectedMoves.add(move);
-				}
-			} else {
-				selectedMoves.add(move);
-			}
-		}
-		return new MoveList(selectedMoves, this.gameState);
+		return with(destinations, advanceOnly, cards & ~cardBits(cardType));
 	}
 
 	public MoveList select(CardType cardType) {
-		List<Move> selectedMoves = new ArrayList<Move>();
-		for (Move move : this.moves) {
-			Card card = getCard(move);
-			if (card != null) {
-				if (card.getType() == cardType) {
-					selectedMoves.add(move);
-				}
-			}
-		}
-		return new MoveList(selectedMoves, this.gameState);
+		return with(destinations, advanceOnly, cards & cardBits(cardType));
 	}
 
 	public MoveList deselect(CardType cardType, int value) {
-		List<Move> selectedMoves = new ArrayList<Move>();
-		for (Move move : this.moves) {
-			Card card = getCard(move);
-			if (card != null) {
-				if (card.getType() != cardType || card.getValue() != value) {
-					selectedMoves.add(move);
-				}
-			} else {
-				selectedMoves.add(move);
-			}
-		}
-		return new MoveList(selectedMoves, this.gameState);
+		return with(destinations, advanceOnly, cards & ~cardBit(cardType, value));
 	}
 
 	public MoveList select(CardType cardType, int value) {
-		List<Move> selectedMoves = new ArrayList<Move>();
-		for (Move move : this.moves) {
-			Card card = getCard(move);
-			if (card != null) {
-				if (card.getType() == cardType && card.getValue() == value) {
-					selectedMoves.add(move);
-				}
-			}
-		}
-		return new MoveList(selectedMoves, this.gameState);
+		return with(destinations, advanceOnly, cards & cardBit(cardType, value));
 	}
 
 	public Move getFurthest(int index) {
-		if (this.moves.size() > index) {
-			Collections.sort(this.moves, getFurthestComparator());
-			return this.moves.get(index);
-		}
-		return null;
+		return getByRank(index, FURTHEST, 0);
 	}
 
 	public Move getFurthest() {
@@ -135,11 +116,7 @@ public class MoveList {
 	}
 
 	public Move getNearest(int index) {
-		if (this.moves.size() > index) {
-			Collections.sort(this.moves, getNearestComparator());
-			return this.moves.get(index);
-		}
-		return null;
+		return getByRank(index, NEAREST, 0);
 	}
 
 	public Move getNearest() {
@@ -147,11 +124,7 @@ public class MoveList {
 	}
 
 	public Move getNearestTo(int wantedDistance, int index) {
-		if (this.moves.size() > index) {
-			Collections.sort(this.moves, getNearestToComparator(wantedDistance));
-			return this.moves.get(index);
-		}
-		return null;
+		return getByRank(index, NEAREST_TO, wantedDistance);
 	}
 
 	public Move getNearestTo(int wantedDistance) {
@@ -159,110 +132,116 @@ public class MoveList {
 	}
 
 	public Move getCarrotExchange(int value) {
-		for (Move move : this.moves) {
-			for (Action action : move.actions) {
-				if (action instanceof ExchangeCarrots) {
-					ExchangeCarrots exchangeCarrots = (ExchangeCarrots) action;
-					if (exchangeCarrots.getValue() == value) {
-						return move;
-					}
-				}
+		for (int i = 0; i < descriptors.size(); i++) {
+			if (descriptors.exchange(i) == value && value != 0 && accepts(i)) {
+				return descriptors.move(i);
 			}
 		}
 		return null;
 	}
 
 	public Move getSaladEat() {
-		for (Move move : this.moves) {
-			for (Action action : move.actions) {
-				if (action instanceof EatSalad) {
-					return move;
-				}
+		for (int i = 0; i < descriptors.size(); i++) {
+			if (descriptors.isEatSalad(i) && accepts(i)) {
+				return descriptors.move(i);
 			}
 		}
 		return null;
 	}
 
 	public Move getFallback() {
-		for (Move move : this.moves) {
-			for (Action action : move.actions) {
-				if (action instanceof FallBack) {
-					return move;
-				}
+		for (int i = 0; i < descriptors.size(); i++) {
+			if (descriptors.isFallBack(i) && accepts(i)) {
+				return descriptors.move(i);
 			}
 		}
 		return null;
 	}
 
-	private static Card getCard(Move move) {
-		for (Action action : move.actions) {
-			if (action instanceof Card) {
-				return (Card) action;
+	/*
+	 * ranking without sorting
+	 */
+
+	private static final int NEAREST = 0;
+	private static final int FURTHEST = 1;
+	private static final int NEAREST_TO = 2;
+
+	/**
+	 * @return sort key of the move, smaller comes first; moves that do not
+	 *         advance come last
+	 */
+	private long key(int i, int order, int wantedDistance) {
+		int distance = descriptors.distance(i);
+		long key;
+		if (distance == 0) {
+			key = Integer.MAX_VALUE;
+		} else if (order == NEAREST) {
+			key = distance;
+		} else if (order == FURTHEST) {
+			key = -distance;
+		} else {
+			key = Math.abs(distance - wantedDistance);
+		}
+		// ties are kept in their original order, like a stable sort
+		return key << 16 | i;
+	}
+
+	/**
+	 * Selects the move at the index of the sorted list with one pass per index:
+	 * every pass finds the smallest key larger than the one of the pass before.
+	 */
+	private Move getByRank(int index, int order, int wantedDistance) {
+		long previous = Long.MIN_VALUE;
+		int found = -1;
+		for (int rank = 0; rank <= index; rank++) {
+			long smallest = Long.MAX_VALUE;
+			found = -1;
+			for (int i = 0; i < descriptors.size(); i++) {
+				if (accepts(i)) {
+					long key = key(i, order, wantedDistance);
+					if (key > previous && key < smallest) {
+						smallest = key;
+						found = i;
+					}
+				}
 			}
-		}
-		return null;
-	}
-
-	private static Advance getAdvance(Move move) {
-		for (Action action : move.actions) {
-			if (action instanceof Advance) {
-				return (Advance) action;
+			if (found == -1) {
+				return null;
 			}
+			previous = smallest;
 		}
-		return null;
+		return descriptors.move(found);
 	}
 
-	private static Comparator<Move> nearestComparator = new Comparator<Move>() {
-		@Override
-		public int compare(Move m1, Move m2) {
-			Advance a1 = getAdvance(m1), a2 = getAdvance(m2);
-			int distance1 = Integer.MAX_VALUE, distance2 = Integer.MAX_VALUE;
-			if (a1 != null) {
-				distance1 = a1.getDistance();
-			}
-			if (a2 != null) {
-				distance2 = a2.getDistance();
-			}
-			return ((Integer) distance1).compareTo(distance2);
-		}
-	};
-	private static Comparator<Move> furthestComparator = new Comparator<Move>() {
-		@Override
-		public int compare(Move m1, Move m2) {
-			Advance a1 = getAdvance(m1), a2 = getAdvance(m2);
-			int distance1 = Integer.MIN_VALUE, distance2 = Integer.MIN_VALUE;
-			if (a1 != null) {
-				distance1 = a1.getDistance();
-			}
-			if (a2 != null) {
-				distance2 = a2.getDistance();
-			}
-			return ((Integer) distance1).compareTo(distance2) * -1;
-		}
-	};
+	/*
+	 * card codes
+	 */
 
-	private static Comparator<Move> getNearestComparator() {
-		return nearestComparator;
+	private static int cardCode(CardType type, int value) {
+		if (type == CardType.TAKE_OR_DROP_CARROTS) {
+			return value == 20 ? Moves.CARD_TAKE_20 : value == -20 ? Moves.CARD_DROP_20 : Moves.CARD_TAKE_0;
+		} else if (type == CardType.EAT_SALAD) {
+			return Moves.CARD_EAT_SALAD;
+		} else if (type == CardType.FALL_BACK) {
+			return Moves.CARD_FALL_BACK;
+		}
+		return Moves.CARD_HURRY_AHEAD;
 	}
 
-	private static Comparator<Move> getFurthestComparator() {
-		return furthestComparator;
+	private static int cardBits(CardType type) {
+		if (type == CardType.TAKE_OR_DROP_CARROTS) {
+			return 1 << Moves.CARD_TAKE_20 | 1 << Moves.CARD_DROP_20 | 1 << Moves.CARD_TAKE_0;
+		}
+		return 1 << cardCode(type, 0);
 	}
 
-	private static Comparator<Move> getNearestToComparator(int wantedDistance) {
-		return new Comparator<Move>() {
-			@Override
-			public int compare(Move m1, Move m2) {
-				Advance a1 = getAdvance(m1), a2 = getAdvance(m2);
-				int distanceTo1 = Integer.MAX_VALUE, distanceTo2 = Integer.MAX_VALUE;
-				if (a1 != null) {
-					distanceTo1 = Math.abs(a1.getDistance() - wantedDistance);
-				}
-				if (a1 != null) {
-					distanceTo2 = Math.abs(a2.getDistance() - wantedDistance);
-				}
-				return ((Integer) distanceTo1).compareTo(distanceTo2);
-			}
-		};
+	/**
+	 * @return bit of the card with the value, 0 if there is no such card
+	 */
+	private static int cardBit(CardType type, int value) {
+		if (type == CardType.TAKE_OR_DROP_CARROTS ? value != 20 && value != -20 && value != 0 : value != 0) {
+			return 0;
+		}
+		return 1 << cardCode(type, value);
 	}
 }
@@ -0,0 +1,288 @@
+package sc.player2018.logic;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.converters.reflection.ReflectionConverter;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+import sc.plugin2018.CardType;
+import sc.plugin2018.FieldType;
+import sc.plugin2018.GameState;
+import sc.plugin2018.Move;
+import sc.shared.PlayerColor;
+
+/**
+ * Reads the {@code <state>} element of the protocol straight into a
+ * {@link CompactState}, walking the XML of the pull parser instead of letting
+ * XStream build the objects by reflection. Registered on the XStream of the
+ * client with {@link #register(XStream)}, it converts every game state of the
+ * server: the {@link GameState} the SDK hands to the logic is made from the
+ * compact state, and the logic gets the compact state itself with
+ * {@link #getDecoded(GameState)}. All other messages and the last move of a
+ * state still go through XStream; other unknown elements of a state are
+ * skipped.
+ *
+ * An instance keeps the board of the last state, so the states of one game
+ * share their {@link BoardIndex}. It is meant for one stream at a time.
+ */
+public class StateDecoder implements Converter {
+	private static final Logger log = LoggerFactory.getLogger(StateDecoder.class);
+	private static final int RED = CompactState.RED;
+	private static final int BLUE = CompactState.BLUE;
+
+	private static final Field START_PLAYER;
+	private static final Method SET_LAST_MOVE;
+
+	static {
+		// like CompactState#toGameState, the SDK has no public setters for these
+		try {
+			START_PLAYER = GameState.class.getDeclaredField("startPlayer");
+			START_PLAYER.setAccessible(true);
+			SET_LAST_MOVE = GameState.class.getDeclaredMethod("setLastMove", Move.class);
+			SET_LAST_MOVE.setAccessible(true);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** state decoded last by any registered decoder, with the game state made of it */
+	private static volatile Decoded last;
+
+	private static class Decoded {
+		final GameState gameState;
+		final CompactState state;
+
+		Decoded(GameState gameState, CompactState state) {
+			this.gameState = gameState;
+			this.state = state;
+		}
+	}
+
+	// converts game states the usual way when they are written, e.g. in the debug log
+	private final Converter writer;
+	private BoardIndex boardIndex;
+	private final byte[] board = new byte[BoardIndex.SIZE];
+	// index, carrots, salads, cards and last action of both players
+	private final int[][] players = new int[2][5];
+	// of the last decoded state
+	private boolean blueStarts;
+	private Move lastMove;
+	private int skipped;
+
+	/**
+	 * Decoder that only decodes, for reading replays
+	 */
+	public StateDecoder() {
+		this(null);
+	}
+
+	private StateDecoder(Converter writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Converts the game states of the XStream with a new decoder from now on
+	 */
+	public static void register(XStream xStream) {
+		ReflectionConverter writer = new ReflectionConverter(xStream.getMapper(), xStream.getReflectionProvider());
+		xStream.registerConverter(new StateDecoder(writer), XStream.PRIORITY_VERY_HIGH);
+	}
+
+	/**
+	 * @return the compact state the game state was made of, null if it was not
+	 *         decoded by a registered decoder or another state was decoded since
+	 */
+	public static CompactState getDecoded(GameState gameState) {
+		Decoded decoded = last;
+		return decoded != null && decoded.gameState == gameState ? decoded.state : null;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public boolean canConvert(Class type) {
+		return type == GameState.class;
+	}
+
+	@Override
+	public void marshal(Object source, HierarchicalStreamWriter out, MarshallingContext context) {
+		if (writer == null) {
+			throw new UnsupportedOperationException("Game states are only read");
+		}
+		writer.marshal(source, out, context);
+	}
+
+	@Override
+	public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+		CompactState state = decode(reader, context);
+		GameState gameState = state.toGameState();
+		try {
+			START_PLAYER.set(gameState, blueStarts ? PlayerColor.BLUE : PlayerColor.RED);
+			SET_LAST_MOVE.invoke(gameState, lastMove);
+		} catch (ReflectiveOperationException e) {
+			throw new ConversionException("Could not create game state", e);
+		}
+		last = new Decoded(gameState, state);
+		return gameState;
+	}
+
+	/**
+	 * Reads the state element the reader is on
+	 *
+	 * @param context
+	 *            used to read the last move, null to skip it
+	 */
+	public CompactState decode(HierarchicalStreamReader reader, UnmarshallingContext context) {
+		int turn = intAttribute(reader, "turn");
+		int current = "BLUE".equals(reader.getAttribute("currentPlayer")) ? BLUE : RED;
+		blueStarts = "BLUE".equals(reader.getAttribute("startPlayer"));
+		lastMove = null;
+		for (int[] player : players) {
+			Arrays.fill(player, 0);
+		}
+		int fields = -1;
+		while (reader.hasMoreChildren()) {
+			reader.moveDown();
+			switch (reader.getNodeName()) {
+			case "red":
+				readPlayer(reader, players[RED]);
+				break;
+			case "blue":
+				readPlayer(reader, players[BLUE]);
+				break;
+			case "board":
+				fields = readBoard(reader);
+				break;
+			case "lastMove":
+				if (context != null) {
+					lastMove = (Move) context.convertAnother(null, Move.class);
+				}
+				break;
+			default:
+				if (skipped++ == 0) {
+					log.warn("Skipping unknown element {} of a game state", reader.getNodeName());
+				}
+			}
+			reader.moveUp();
+		}
+		if (fields != BoardIndex.SIZE) {
+			throw new ConversionException("Board of the game state has " + fields + " fields");
+		}
+		if (boardIndex == null || !Arrays.equals(board, boardIndex.getBoard())) {
+			boardIndex = new BoardIndex(board.clone());
+		}
+		CompactState state = new CompactState(boardIndex);
+		for (int p = RED; p <= BLUE; p++) {
+			int[] player = players[p];
+			state.setPlayer(p, player[0], player[1], player[2], player[3], player[4]);
+		}
+		state.setTurn(turn, current);
+		return state;
+	}
+
+	private void readPlayer(HierarchicalStreamReader reader, int[] player) {
+		player[0] = intAttribute(reader, "index");
+		player[1] = intAttribute(reader, "carrots");
+		player[2] = intAttribute(reader, "salads");
+		while (reader.hasMoreChildren()) {
+			reader.moveDown();
+			if (reader.getNodeName().equals("cards")) {
+				while (reader.hasMoreChildren()) {
+					reader.moveDown();
+					player[3] |= 1 << cardType(reader.getValue().trim()).ordinal();
+					reader.moveUp();
+				}
+			} else if (reader.getNodeName().equals("lastNonSkipAction")) {
+				player[4] = readAction(reader);
+			}
+			reader.moveUp();
+		}
+	}
+
+	/**
+	 * @return the action in the encoding of {@link CompactState#encodeAction}
+	 */
+	private static int readAction(HierarchicalStreamReader reader) {
+		String type = reader.getAttribute("class");
+		if (type == null) {
+			return CompactState.LAST_NONE;
+		}
+		switch (type) {
+		case "advance":
+			return CompactState.LAST_ADVANCE | intAttribute(reader, "distance") << 4;
+		case "eatSalad":
+			return CompactState.LAST_EAT_SALAD;
+		case "exchangeCarrots":
+			return CompactState.LAST_EXCHANGE_CARROTS | intAttribute(reader, "value") << 4;
+		case "fallBack":
+			return CompactState.LAST_FALL_BACK;
+		case "card":
+			switch (cardType(reader.getAttribute("type"))) {
+			case TAKE_OR_DROP_CARROTS:
+				return CompactState.LAST_CARD_TAKE_OR_DROP_CARROTS | intAttribute(reader, "value") << 4;
+			case EAT_SALAD:
+				return CompactState.LAST_CARD_EAT_SALAD;
+			case FALL_BACK:
+				return CompactState.LAST_CARD_FALL_BACK;
+			default:
+				return CompactState.LAST_CARD_HURRY_AHEAD;
+			}
+		default:
+			return CompactState.LAST_NONE;
+		}
+	}
+
+	/**
+	 * @return number of fields read
+	 */
+	private int readBoard(HierarchicalStreamReader reader) {
+		int fields = 0;
+		while (reader.hasMoreChildren()) {
+			reader.moveDown();
+			int index = intAttribute(reader, "index");
+			if (index < 0 || index >= BoardIndex.SIZE) {
+				throw new ConversionException("Field " + index + " is not on the board");
+			}
+			try {
+				board[index] = (byte) FieldType.valueOf(reader.getAttribute("type")).ordinal();
+			} catch (IllegalArgumentException | NullPointerException e) {
+				throw new ConversionException("Unknown field type " + reader.getAttribute("type"));
+			}
+			fields++;
+			reader.moveUp();
+		}
+		return fields;
+	}
+
+	private static CardType cardType(String name) {
+		try {
+			return CardType.valueOf(name);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			throw new ConversionException("Unknown card " + name);
+		}
+	}
+
+	private static int intAttribute(HierarchicalStreamReader reader, String name) {
+		String value = reader.getAttribute(name);
+		if (value == null) {
+			throw new ConversionException("Attribute " + name + " missing in " + reader.getNodeName());
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new ConversionException("Attribute " + name + " is not a number: " + value);
+		}
+	}
+}
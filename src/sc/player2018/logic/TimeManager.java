@@ -0,0 +1,152 @@
+package sc.player2018.logic;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import sc.player2018.search.CompactState;
+
+/**
+ * Turns the 2000ms the server gives us for a move into two deadlines (values
+ * of {@link System#nanoTime()}):
+ * <ul>
+ * <li>soft: no new search iteration should be started after it</li>
+ * <li>hard: the search has to stop and the move has to be sent</li>
+ * </ul>
+ * The hard deadline keeps a safety margin to the limit of the server. The
+ * margin grows with the longest garbage collection pause and the longest delay
+ * between the hard deadline and the sent move observed so far, both decay
+ * slowly again.
+ */
+public class TimeManager {
+	private static final long MS = 1000000L;
+	/** time the server allows for one move */
+	public static final long TURN_LIMIT = 2000 * MS;
+	// covers the network and the work of the server we cannot observe, both are
+	// given for the turn limit of the server and scaled for other limits
+	private static final long MIN_MARGIN = 200 * MS;
+	private static final long MAX_MARGIN = 1000 * MS;
+
+	// share of the time until the hard deadline used for the soft deadline
+	private static final int NORMAL_SHARE = 55;
+	private static final int CRITICAL_SHARE = 85;
+	// distance to a salad field or the goal that makes a position critical
+	private static final int CRITICAL_DISTANCE = 10;
+
+	private final long turnLimit;
+	private final long minMargin;
+	private final long maxMargin;
+
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+	private long gcTime;
+	private long gcCount;
+
+	private long gcPause;
+	private long overshoot;
+
+	private long start;
+	private long softDeadline;
+	private long hardDeadline;
+
+	public TimeManager() {
+		this(TURN_LIMIT);
+	}
+
+	/**
+	 * @param turnLimit
+	 *            time allowed for one move in nanoseconds
+	 */
+	public TimeManager(long turnLimit) {
+		this.turnLimit = turnLimit;
+		this.minMargin = MIN_MARGIN * turnLimit / TURN_LIMIT;
+		this.maxMargin = MAX_MARGIN * turnLimit / TURN_LIMIT;
+		sampleGc();
+	}
+
+	/**
+	 * Computes the deadlines of a new turn.
+	 *
+	 * @param start
+	 *            time the move request (or the state before it) was received
+	 * @param state
+	 *            position we have to move in
+	 * @param moveCount
+	 *            number of legal moves, a single move is sent immediately
+	 */
+	public void startTurn(long start, CompactState state, int moveCount) {
+		this.start = start;
+		hardDeadline = start + turnLimit - getMargin();
+		if (moveCount <= 1) {
+			softDeadline = start;
+			return;
+		}
+		int share = isCritical(state) ? CRITICAL_SHARE : NORMAL_SHARE;
+		softDeadline = start + (hardDeadline - start) * share / 100;
+	}
+
+	/**
+	 * Has to be called after the move was sent, updates the safety margin.
+	 */
+	public void endTurn(long sentTime) {
+		overshoot = Math.max(sentTime - hardDeadline, overshoot * 7 / 8);
+		long pause = sampleGc();
+		gcPause = Math.max(pause, gcPause * 7 / 8);
+	}
+
+	/**
+	 * @return average length of the collections since the last sample
+	 */
+	private long sampleGc() {
+		long time = 0;
+		long count = 0;
+		for (GarbageCollectorMXBean collector : collectors) {
+			time += Math.max(0, collector.getCollectionTime());
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		long pause = count > gcCount ? (time - gcTime) * MS / (count - gcCount) : 0;
+		gcTime = time;
+		gcCount = count;
+		return pause;
+	}
+
+	/**
+	 * Positions where the player to move can reach a salad field or the goal soon
+	 * (or the opponent the goal) decide the game, they get more time.
+	 */
+	private static boolean isCritical(CompactState state) {
+		int current = state.getCurrent();
+		int index = state.getFieldIndex(current);
+		if (state.getSalads(current) > 0) {
+			int salad = state.nextField(CompactState.SALAD, index);
+			if (salad != -1 && salad - index <= CRITICAL_DISTANCE) {
+				return true;
+			}
+		}
+		int furthest = Math.max(index, state.getFieldIndex(1 - current));
+		return CompactState.GOAL_INDEX - furthest <= CRITICAL_DISTANCE;
+	}
+
+	public long getMargin() {
+		return Math.min(maxMargin, minMargin + gcPause + overshoot);
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getSoftDeadline() {
+		return softDeadline;
+	}
+
+	public long getHardDeadline() {
+		return hardDeadline;
+	}
+
+	public boolean isSoftExpired() {
+		return System.nanoTime() > softDeadline;
+	}
+
+	public boolean isHardExpired() {
+		return System.nanoTime() > hardDeadline;
+	}
+}
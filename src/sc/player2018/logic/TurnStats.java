@@ -0,0 +1,129 @@
+package sc.player2018.logic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the time of our turns goes and what decided on the moves, for one
+ * game. The logic takes {@link System#nanoTime()} probes around the steps of a
+ * turn; recording them only increments counters, the summary is built when the
+ * game has ended.
+ */
+public class TurnStats {
+	/** what decided on the move of a turn */
+	public enum Source {
+		BOOK, WIN, TABLE, MCTS, SEARCH, PONDER, ROUND_LIMIT, EARLY_GAME, MID_GAME, END_GAME, SIMPLE
+	}
+
+	/** steps of a turn that are timed on their own */
+	public enum Stage {
+		/** reading the game state and generating the moves */
+		GENERATE,
+		/** search, tree search or endgame table */
+		SEARCH,
+		/** phase logic and simple logic, only if the search found nothing */
+		FILTER,
+		/** handing the move to the sender */
+		SEND
+	}
+
+	// whole turns, from receiving the game state to the sent move
+	private final LatencyHistogram[] turns = new LatencyHistogram[Source.values().length];
+	private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+	// turns the search found no move and the phase logic had to decide
+	private int fallbacks;
+	// moves that were empty and replaced by a random one
+	private int emergencies;
+
+	public TurnStats() {
+		for (int i = 0; i < turns.length; i++) {
+			turns[i] = new LatencyHistogram();
+		}
+		for (int i = 0; i < stages.length; i++) {
+			stages[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * @param start
+	 *            value of {@link System#nanoTime()} when the step started
+	 */
+	public void record(Stage stage, long start) {
+		stages[stage.ordinal()].record(System.nanoTime() - start);
+	}
+
+	/**
+	 * @param start
+	 *            value of {@link System#nanoTime()} when the game state arrived
+	 */
+	public void endTurn(Source source, long start) {
+		turns[source.ordinal()].record(System.nanoTime() - start);
+	}
+
+	public void countFallback() {
+		fallbacks++;
+	}
+
+	public void countEmergency() {
+		emergencies++;
+	}
+
+	public int getEmergencies() {
+		return emergencies;
+	}
+
+	public int getTurns() {
+		long count = 0;
+		for (LatencyHistogram histogram : turns) {
+			count += histogram.getCount();
+		}
+		return (int) count;
+	}
+
+	/**
+	 * @return one line per source and stage that was recorded (times in
+	 *         microseconds), then the counters
+	 */
+	public List<String> summary() {
+		List<String> lines = new ArrayList<>();
+		LatencyHistogram all = new LatencyHistogram();
+		for (Source source : Source.values()) {
+			LatencyHistogram histogram = turns[source.ordinal()];
+			if (histogram.getCount() > 0) {
+				lines.add("turn " + source + " " + histogram);
+				all.add(histogram);
+			}
+		}
+		lines.add(0, "turn ALL " + all);
+		for (Stage stage : Stage.values()) {
+			LatencyHistogram histogram = stages[stage.ordinal()];
+			if (histogram.getCount() > 0) {
+				lines.add("stage " + stage + " " + histogram);
+			}
+		}
+		lines.add("turns " + getTurns() + " fallbacks " + fallbacks + " emergencies " + emergencies);
+		return lines;
+	}
+
+	public void write(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		Files.write(file, summary(), StandardCharsets.UTF_8);
+	}
+
+	public void reset() {
+		for (LatencyHistogram histogram : turns) {
+			histogram.reset();
+		}
+		for (LatencyHistogram histogram : stages) {
+			histogram.reset();
+		}
+		fallbacks = 0;
+		emergencies = 0;
+	}
+}
@@ -0,0 +1,99 @@
+package sc.player2018.logic;
+
+import java.util.Random;
+
+import com.thoughtworks.xstream.XStream;
+
+import sc.player2018.Settings;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.Evaluator;
+import sc.player2018.search.Mcts;
+import sc.player2018.search.MoveGenerator;
+import sc.player2018.search.Search;
+import sc.player2018.search.TranspositionTable;
+import sc.player2018.search.Weights;
+import sc.plugin2018.CardType;
+import sc.plugin2018.FieldType;
+import sc.plugin2018.GameState;
+import sc.plugin2018.util.Configuration;
+import sc.plugin2018.util.Constants;
+
+/**
+ * Runs the code of a turn on the positions of random games before the first
+ * game starts, so the JIT has compiled it when the first move is requested:
+ * reading the game state from XML, the move generation of the SDK and our own,
+ * the evaluation, the phase logic and a short search with the configured
+ * engine.
+ */
+public class WarmUp {
+	private static final long MS = 1000000L;
+	// every position is searched only briefly, so many different ones are seen
+	private static final long SEARCH_TIME = 5 * MS;
+	private static final int TABLE_SIZE = 4;
+	private static final int MCTS_CAPACITY = 1 << 14;
+
+	/**
+	 * @param time
+	 *            time to spend in milliseconds
+	 * @return number of positions the turn was run on
+	 */
+	public static int run(Settings settings, long time) {
+		long deadline = System.nanoTime() + time * MS;
+		Random random = new Random(1);
+		// the engines of the game are not touched, their tables stay empty
+		Search search = settings.engine == Settings.Engine.ALPHA_BETA ? new Search(new TranspositionTable(TABLE_SIZE), settings.weights) : null;
+		Mcts mcts = settings.engine == Settings.Engine.MCTS ? new Mcts(MCTS_CAPACITY, settings.weights) : null;
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int positions = 0;
+		while (System.nanoTime() < deadline) {
+			CompactState state = CompactState.fromGameState(new GameState());
+			BoardLayout layout = BoardLayout.analyze(state.getBoardIndex());
+			for (int ply = 0; ply < 2 * Constants.ROUND_LIMIT && state.getWinner() == -1
+					&& System.nanoTime() < deadline; ply++) {
+				int count = MoveGenerator.generate(state, moves, 0);
+				if (count == 0) {
+					break;
+				}
+				turn(state, layout, settings.weights, moves, count, search, mcts);
+				positions++;
+				// the undo history of a state is limited, every ply gets a new one
+				CompactState next = state.copy();
+				next.make(moves[random.nextInt(count)]);
+				state = next;
+			}
+		}
+		return positions;
+	}
+
+	private static void turn(CompactState state, BoardLayout layout, Weights weights, int[] moves, int count,
+			Search search, Mcts mcts) {
+		// the same steps as a turn of the client, the results are thrown away
+		XStream xStream = Configuration.getXStream();
+		GameState gameState = (GameState) xStream.fromXML(xStream.toXML(state.toGameState()));
+		gameState.getPossibleMoves();
+		CompactState read = CompactState.fromGameState(gameState, state.getBoardIndex());
+		Evaluator.evaluate(read, read.getCurrent(), weights);
+
+		int c = read.getCurrent();
+		MoveDescriptors descriptors = new MoveDescriptors(moves, count, read.getBoardIndex(), read.getFieldIndex(c));
+		if (read.getSalads(c) == 0) {
+			// the endgame logic would solve an endgame table for every board
+			MoveList list = new MoveList(descriptors, gameState);
+			list.select(FieldType.CARROT).deselect(CardType.HURRY_AHEAD).getNearestTo(3);
+			list.getFurthest();
+			list.getCarrotExchange(10);
+		} else if (read.getFieldIndex(c) < 10) {
+			EarlyGameLogic.getTurn(gameState, layout, weights, descriptors);
+		} else {
+			MidGameLogic.getTurn(gameState, layout, descriptors);
+		}
+		LogicHelper.getSimpleMove(descriptors, gameState.getCurrentPlayer(), weights);
+
+		long now = System.nanoTime();
+		if (search != null) {
+			search.findMove(read, now + SEARCH_TIME / 2, now + SEARCH_TIME);
+		} else if (mcts != null) {
+			mcts.findMove(read, now + SEARCH_TIME);
+		}
+	}
+}
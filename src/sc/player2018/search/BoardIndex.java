@@ -0,0 +1,165 @@
+package sc.player2018.search;
+
+import sc.plugin2018.Board;
+import sc.plugin2018.FieldType;
+import sc.plugin2018.util.Constants;
+import sc.plugin2018.util.GameRuleLogic;
+
+/**
+ * Lookup tables for one board, built once per game. Answers the questions the
+ * {@link Board} and {@link GameRuleLogic} answer by walking the track or with
+ * floating point arithmetic in constant time.
+ */
+public class BoardIndex {
+	public static final int SIZE = Constants.NUM_FIELDS;
+
+	private static final FieldType[] FIELD_TYPES = FieldType.values();
+	private static final int TYPES = FIELD_TYPES.length;
+
+	// calculateMoveableFields is constant from here on
+	private static final int MAX_REACH_CARROTS = 990;
+	// carrots needed to advance by the index
+	private static final int[] CARROT_COST = new int[SIZE + 1];
+	// fields that can be advanced with the index as carrots
+	private static final int[] MAX_REACH = new int[MAX_REACH_CARROTS + 1];
+
+	static {
+		for (int distance = 0; distance < CARROT_COST.length; distance++) {
+			CARROT_COST[distance] = distance * (distance + 1) / 2;
+		}
+		for (int carrots = 0; carrots < MAX_REACH.length; carrots++) {
+			MAX_REACH[carrots] = GameRuleLogic.calculateMoveableFields(carrots);
+		}
+	}
+
+	final byte[] board;
+	// next and previous field of each type, indexed by type * SIZE + index
+	private final int[] next = new int[TYPES * SIZE];
+	private final int[] previous = new int[TYPES * SIZE];
+
+	public BoardIndex(byte[] board) {
+		this.board = board;
+		for (int type = 0; type < TYPES; type++) {
+			int last = -1;
+			for (int i = 0; i < SIZE; i++) {
+				previous[type * SIZE + i] = last;
+				if (board[i] == type) {
+					last = i;
+				}
+			}
+			last = -1;
+			for (int i = SIZE - 1; i >= 0; i--) {
+				next[type * SIZE + i] = last;
+				if (board[i] == type) {
+					last = i;
+				}
+			}
+		}
+	}
+
+	public static BoardIndex of(Board board) {
+		return new BoardIndex(CompactState.readBoard(board));
+	}
+
+	public byte typeAt(int index) {
+		if (index >= 0 && index < SIZE) {
+			return board[index];
+		}
+		return CompactState.INVALID;
+	}
+
+	/**
+	 * @see Board#getTypeAt(int)
+	 */
+	public FieldType getTypeAt(int index) {
+		return FIELD_TYPES[typeAt(index)];
+	}
+
+	/**
+	 * @return index of the next field of the type after the given index, -1 if
+	 *         there is none
+	 */
+	public int next(byte type, int index) {
+		if (index < 0) {
+			return board[0] == type ? 0 : next[type * SIZE];
+		} else if (index >= SIZE) {
+			return -1;
+		}
+		return next[type * SIZE + index];
+	}
+
+	/**
+	 * @return index of the previous field of the type before the given index, -1
+	 *         if there is none
+	 */
+	public int previous(byte type, int index) {
+		if (index <= 0) {
+			return -1;
+		}
+		if (index >= SIZE) {
+			return board[SIZE - 1] == type ? SIZE - 1 : previous[type * SIZE + SIZE - 1];
+		}
+		return previous[type * SIZE + index];
+	}
+
+	/**
+	 * @see Board#getNextFieldByType(FieldType, int)
+	 */
+	public int getNextFieldByType(FieldType type, int index) {
+		return next((byte) type.ordinal(), index);
+	}
+
+	/**
+	 * @see Board#getPreviousFieldByType(FieldType, int)
+	 */
+	public int getPreviousFieldByType(FieldType type, int index) {
+		return previous((byte) type.ordinal(), index);
+	}
+
+	/**
+	 * @return carrots needed to advance the given distance, same as
+	 *         {@link GameRuleLogic#calculateCarrots(int)}
+	 */
+	public static int carrotCost(int distance) {
+		if (distance >= 0 && distance < CARROT_COST.length) {
+			return CARROT_COST[distance];
+		}
+		return GameRuleLogic.calculateCarrots(distance);
+	}
+
+	/**
+	 * @return number of fields that can be advanced with the given carrots, same
+	 *         as {@link GameRuleLogic#calculateMoveableFields(int)}
+	 */
+	public static int maxReach(int carrots) {
+		if (carrots < 0) {
+			return 0;
+		}
+		return MAX_REACH[Math.min(carrots, MAX_REACH_CARROTS)];
+	}
+
+	/**
+	 * @return hash of the whole layout
+	 */
+	public long fingerprint() {
+		return fingerprint(0, SIZE);
+	}
+
+	/**
+	 * FNV-1a hash of the field types from {@code from} (inclusive) to {@code to}
+	 * (exclusive), the same layout always gives the same value, also in other
+	 * processes.
+	 */
+	public long fingerprint(int from, int to) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = from; i < to; i++) {
+			hash ^= board[i];
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	public byte[] getBoard() {
+		return board;
+	}
+}
@@ -0,0 +1,696 @@
+package sc.player2018.search;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import sc.plugin2018.Action;
+import sc.plugin2018.Advance;
+import sc.plugin2018.Board;
+import sc.plugin2018.Card;
+import sc.plugin2018.CardType;
+import sc.plugin2018.EatSalad;
+import sc.plugin2018.ExchangeCarrots;
+import sc.plugin2018.FallBack;
+import sc.plugin2018.FieldType;
+import sc.plugin2018.GameState;
+import sc.plugin2018.Player;
+import sc.plugin2018.util.Constants;
+import sc.plugin2018.util.GameRuleLogic;
+import sc.shared.PlayerColor;
+
+/**
+ * Primitive-only representation of a {@link GameState} for the search. The
+ * board is an immutable byte array shared between all copies, the two players
+ * are kept in int arrays indexed by {@link #RED} and {@link #BLUE}.
+ *
+ * Moves are applied with {@link #make(int)} and taken back with
+ * {@link #unmake()}, the rules are the same as in {@link GameRuleLogic} and the
+ * perform methods of the actions.
+ */
+public class CompactState {
+	public static final int RED = 0;
+	public static final int BLUE = 1;
+
+	public static final int GOAL_INDEX = Constants.NUM_FIELDS - 1;
+
+	// field types as stored in the board array
+	public static final byte POSITION_1 = (byte) FieldType.POSITION_1.ordinal();
+	public static final byte POSITION_2 = (byte) FieldType.POSITION_2.ordinal();
+	public static final byte HEDGEHOG = (byte) FieldType.HEDGEHOG.ordinal();
+	public static final byte SALAD = (byte) FieldType.SALAD.ordinal();
+	public static final byte CARROT = (byte) FieldType.CARROT.ordinal();
+	public static final byte HARE = (byte) FieldType.HARE.ordinal();
+	public static final byte INVALID = (byte) FieldType.INVALID.ordinal();
+	public static final byte GOAL = (byte) FieldType.GOAL.ordinal();
+	public static final byte START = (byte) FieldType.START.ordinal();
+
+	// bits of the card mask
+	public static final int TAKE_OR_DROP_CARROTS = 1 << CardType.TAKE_OR_DROP_CARROTS.ordinal();
+	public static final int EAT_SALAD = 1 << CardType.EAT_SALAD.ordinal();
+	public static final int FALL_BACK = 1 << CardType.FALL_BACK.ordinal();
+	public static final int HURRY_AHEAD = 1 << CardType.HURRY_AHEAD.ordinal();
+
+	// kinds of the last non-skip action, the value of the action is stored above
+	// the lowest four bits
+	public static final int LAST_NONE = 0;
+	public static final int LAST_ADVANCE = 1;
+	public static final int LAST_EAT_SALAD = 2;
+	public static final int LAST_EXCHANGE_CARROTS = 3;
+	public static final int LAST_FALL_BACK = 4;
+	public static final int LAST_CARD_TAKE_OR_DROP_CARROTS = 5;
+	public static final int LAST_CARD_EAT_SALAD = 6;
+	public static final int LAST_CARD_FALL_BACK = 7;
+	public static final int LAST_CARD_HURRY_AHEAD = 8;
+
+	private static final int TURN_LIMIT = 2 * Constants.ROUND_LIMIT;
+	private static final int MAX_PLY = 128;
+	private static final int UNDO_SIZE = 12;
+
+	final BoardIndex boardIndex;
+	final byte[] board;
+
+	final int[] fieldIndex = new int[2];
+	final int[] carrots = new int[2];
+	final int[] salads = new int[2];
+	final int[] cards = new int[2];
+	final int[] lastAction = new int[2];
+	int turn;
+	int current;
+	/** Zobrist hash of the position, see {@link Zobrist} */
+	long hash;
+
+	private final int[] undo = new int[MAX_PLY * UNDO_SIZE];
+	private final long[] undoHash = new long[MAX_PLY];
+	private int ply;
+
+	public CompactState(byte[] board) {
+		this(new BoardIndex(board));
+	}
+
+	public CompactState(BoardIndex boardIndex) {
+		this.boardIndex = boardIndex;
+		this.board = boardIndex.board;
+	}
+
+	/**
+	 * @return copy of this state sharing the board, the undo history is not
+	 *         copied
+	 */
+	public CompactState copy() {
+		CompactState copy = new CompactState(boardIndex);
+		copy.set(this);
+		return copy;
+	}
+
+	public void set(CompactState other) {
+		for (int p = RED; p <= BLUE; p++) {
+			fieldIndex[p] = other.fieldIndex[p];
+			carrots[p] = other.carrots[p];
+			salads[p] = other.salads[p];
+			cards[p] = other.cards[p];
+			lastAction[p] = other.lastAction[p];
+		}
+		turn = other.turn;
+		current = other.current;
+		hash = other.hash;
+		ply = 0;
+	}
+
+	public static byte[] readBoard(Board board) {
+		byte[] types = new byte[Constants.NUM_FIELDS];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = (byte) board.getTypeAt(i).ordinal();
+		}
+		return types;
+	}
+
+	public static CompactState fromGameState(GameState gameState) {
+		return fromGameState(gameState, BoardIndex.of(gameState.getBoard()));
+	}
+
+	/**
+	 * @param boardIndex
+	 *            index of the board of the game state, can be shared between all
+	 *            states of one game
+	 */
+	public static CompactState fromGameState(GameState gameState, BoardIndex boardIndex) {
+		CompactState state = new CompactState(boardIndex);
+		state.readPlayer(RED, gameState.getPlayer(PlayerColor.RED));
+		state.readPlayer(BLUE, gameState.getPlayer(PlayerColor.BLUE));
+		state.turn = gameState.getTurn();
+		state.current = gameState.getCurrentPlayerColor() == PlayerColor.RED ? RED : BLUE;
+		state.hash = Zobrist.hash(state);
+		return state;
+	}
+
+	private void readPlayer(int p, Player player) {
+		fieldIndex[p] = player.getFieldIndex();
+		carrots[p] = player.getCarrots();
+		salads[p] = player.getSalads();
+		int mask = 0;
+		for (CardType type : player.getCards()) {
+			mask |= 1 << type.ordinal();
+		}
+		cards[p] = mask;
+		lastAction[p] = encodeAction(player.getLastNonSkipAction());
+	}
+
+	/**
+	 * Creates a new {@link GameState} with the same board, players and turn. The
+	 * last move of the game state is not part of this representation and stays
+	 * empty.
+	 */
+	public GameState toGameState() {
+		GameState gameState = new GameState();
+		try {
+			@SuppressWarnings("unchecked")
+			List<sc.plugin2018.Field> track = (List<sc.plugin2018.Field>) BOARD_TRACK.get(gameState.getBoard());
+			FieldType[] types = FieldType.values();
+			for (int i = 0; i < board.length; i++) {
+				track.get(i).setType(types[board[i]]);
+			}
+			writePlayer(RED, gameState.getPlayer(PlayerColor.RED));
+			writePlayer(BLUE, gameState.getPlayer(PlayerColor.BLUE));
+			gameState.setTurn(turn);
+			SET_CURRENT_PLAYER.invoke(gameState, current == RED ? PlayerColor.RED : PlayerColor.BLUE);
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not create game state", e);
+		}
+		return gameState;
+	}
+
+	private void writePlayer(int p, Player player) throws Exception {
+		player.setFieldIndex(fieldIndex[p]);
+		SET_CARROTS.invoke(player, carrots[p]);
+		SET_SALADS.invoke(player, salads[p]);
+		List<CardType> owned = new ArrayList<>();
+		// same order as a new player gets them
+		for (CardType type : INITIAL_CARDS) {
+			if ((cards[p] & 1 << type.ordinal()) != 0) {
+				owned.add(type);
+			}
+		}
+		player.setCards(owned);
+		player.setLastNonSkipAction(decodeAction(lastAction[p]));
+	}
+
+	private static final CardType[] INITIAL_CARDS = { CardType.TAKE_OR_DROP_CARROTS, CardType.EAT_SALAD,
+			CardType.HURRY_AHEAD, CardType.FALL_BACK };
+	private static final Field BOARD_TRACK;
+	private static final Method SET_CARROTS;
+	private static final Method SET_SALADS;
+	private static final Method SET_CURRENT_PLAYER;
+
+	static {
+		// the SDK offers no public way to build a game state, so the protected
+		// setters are used
+		try {
+			BOARD_TRACK = Board.class.getDeclaredField("track");
+			BOARD_TRACK.setAccessible(true);
+			SET_CARROTS = Player.class.getDeclaredMethod("setCarrots", int.class);
+			SET_CARROTS.setAccessible(true);
+			SET_SALADS = Player.class.getDeclaredMethod("setSalads", int.class);
+			SET_SALADS.setAccessible(true);
+			SET_CURRENT_PLAYER = GameState.class.getDeclaredMethod("setCurrentPlayer", PlayerColor.class);
+			SET_CURRENT_PLAYER.setAccessible(true);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public static int encodeAction(Action action) {
+		if (action instanceof Advance) {
+			return LAST_ADVANCE | ((Advance) action).getDistance() << 4;
+		} else if (action instanceof EatSalad) {
+			return LAST_EAT_SALAD;
+		} else if (action instanceof ExchangeCarrots) {
+			return LAST_EXCHANGE_CARROTS | ((ExchangeCarrots) action).getValue() << 4;
+		} else if (action instanceof FallBack) {
+			return LAST_FALL_BACK;
+		} else if (action instanceof Card) {
+			Card card = (Card) action;
+			switch (card.getType()) {
+			case TAKE_OR_DROP_CARROTS:
+				return LAST_CARD_TAKE_OR_DROP_CARROTS | card.getValue() << 4;
+			case EAT_SALAD:
+				return LAST_CARD_EAT_SALAD;
+			case FALL_BACK:
+				return LAST_CARD_FALL_BACK;
+			default:
+				return LAST_CARD_HURRY_AHEAD;
+			}
+		}
+		return LAST_NONE;
+	}
+
+	public static Action decodeAction(int action) {
+		int value = action >> 4;
+		switch (action & 0xf) {
+		case LAST_ADVANCE:
+			return new Advance(value);
+		case LAST_EAT_SALAD:
+			return new EatSalad();
+		case LAST_EXCHANGE_CARROTS:
+			return new ExchangeCarrots(value);
+		case LAST_FALL_BACK:
+			return new FallBack();
+		case LAST_CARD_TAKE_OR_DROP_CARROTS:
+			return new Card(CardType.TAKE_OR_DROP_CARROTS, value, 0);
+		case LAST_CARD_EAT_SALAD:
+			return new Card(CardType.EAT_SALAD);
+		case LAST_CARD_FALL_BACK:
+			return new Card(CardType.FALL_BACK);
+		case LAST_CARD_HURRY_AHEAD:
+			return new Card(CardType.HURRY_AHEAD);
+		default:
+			return null;
+		}
+	}
+
+	/*
+	 * make / unmake
+	 */
+
+	/**
+	 * Applies a legal move for the player to move, the move is not validated.
+	 */
+	public void make(int move) {
+		int base = ply++ * UNDO_SIZE;
+		for (int p = RED; p <= BLUE; p++) {
+			int offset = base + p * 5;
+			undo[offset] = fieldIndex[p];
+			undo[offset + 1] = carrots[p];
+			undo[offset + 2] = salads[p];
+			undo[offset + 3] = cards[p];
+			undo[offset + 4] = lastAction[p];
+		}
+		undo[base + 10] = turn;
+		undo[base + 11] = current;
+		undoHash[ply - 1] = hash;
+
+		int c = current, o = 1 - c;
+		// take both players out of the hash, they are put back with their new values
+		// at the end
+		long h = hash ^ playerHash(c) ^ playerHash(o);
+		switch (Moves.type(move)) {
+		case Moves.ADVANCE:
+			int distance = Moves.distance(move);
+			carrots[c] -= BoardIndex.carrotCost(distance);
+			fieldIndex[c] += distance;
+			lastAction[c] = LAST_ADVANCE | distance << 4;
+			break;
+		case Moves.EAT_SALAD:
+			salads[c]--;
+			carrots[c] += fieldIndex[c] > fieldIndex[o] ? 10 : 30;
+			lastAction[c] = LAST_EAT_SALAD;
+			break;
+		case Moves.TAKE_CARROTS:
+			carrots[c] += 10;
+			lastAction[c] = LAST_EXCHANGE_CARROTS | 10 << 4;
+			break;
+		case Moves.DROP_CARROTS:
+			carrots[c] -= 10;
+			lastAction[c] = LAST_EXCHANGE_CARROTS | -10 << 4;
+			break;
+		case Moves.FALL_BACK:
+			int hedgehog = previousField(HEDGEHOG, fieldIndex[c]);
+			carrots[c] += 10 * (fieldIndex[c] - hedgehog);
+			fieldIndex[c] = hedgehog;
+			lastAction[c] = LAST_FALL_BACK;
+			break;
+		default:
+			// skip does not change anything
+		}
+		for (int i = 0; i < Moves.MAX_CARDS; i++) {
+			int card = Moves.card(move, i);
+			if (card == 0) {
+				break;
+			}
+			playCard(c, o, card);
+		}
+
+		turn++;
+		current = turn % 2 == 0 ? RED : BLUE;
+		int next = current;
+		byte type = typeAt(fieldIndex[next]);
+		if (type == POSITION_1 && isFirst(next)) {
+			carrots[next] += 10;
+		} else if (type == POSITION_2 && isFirst(1 - next)) {
+			carrots[next] += 30;
+		}
+		hash = h ^ playerHash(c) ^ playerHash(o) ^ Zobrist.BLUE_TO_MOVE;
+	}
+
+	private long playerHash(int p) {
+		return Zobrist.player(p, fieldIndex[p], carrots[p], salads[p], cards[p], lastAction[p]);
+	}
+
+	private void playCard(int c, int o, int card) {
+		switch (card) {
+		case Moves.CARD_EAT_SALAD:
+			salads[c]--;
+			carrots[c] += isFirst(c) ? 10 : 30;
+			lastAction[c] = LAST_CARD_EAT_SALAD;
+			cards[c] &= ~EAT_SALAD;
+			break;
+		case Moves.CARD_FALL_BACK:
+			fieldIndex[c] = fieldIndex[o] - 1;
+			lastAction[c] = LAST_CARD_FALL_BACK;
+			cards[c] &= ~FALL_BACK;
+			break;
+		case Moves.CARD_HURRY_AHEAD:
+			fieldIndex[c] = fieldIndex[o] + 1;
+			lastAction[c] = LAST_CARD_HURRY_AHEAD;
+			cards[c] &= ~HURRY_AHEAD;
+			break;
+		default:
+			int value = Moves.cardValue(card);
+			carrots[c] += value;
+			lastAction[c] = LAST_CARD_TAKE_OR_DROP_CARROTS | value << 4;
+			cards[c] &= ~TAKE_OR_DROP_CARROTS;
+		}
+	}
+
+	/**
+	 * Takes back the last move applied with {@link #make(int)}.
+	 */
+	public void unmake() {
+		int base = --ply * UNDO_SIZE;
+		for (int p = RED; p <= BLUE; p++) {
+			int offset = base + p * 5;
+			fieldIndex[p] = undo[offset];
+			carrots[p] = undo[offset + 1];
+			salads[p] = undo[offset + 2];
+			cards[p] = undo[offset + 3];
+			lastAction[p] = undo[offset + 4];
+		}
+		turn = undo[base + 10];
+		current = undo[base + 11];
+		hash = undoHash[ply];
+	}
+
+	/*
+	 * rules, ported from GameRuleLogic for the player to move
+	 */
+
+	public byte typeAt(int index) {
+		if (index >= 0 && index < board.length) {
+			return board[index];
+		}
+		return INVALID;
+	}
+
+	public int previousField(byte type, int index) {
+		return boardIndex.previous(type, index);
+	}
+
+	public int nextField(byte type, int index) {
+		return boardIndex.next(type, index);
+	}
+
+	public boolean isOccupied(int index) {
+		return (fieldIndex[RED] == index || fieldIndex[BLUE] == index) && index != GOAL_INDEX;
+	}
+
+	public boolean isFirst(int p) {
+		return isFirst(p, fieldIndex[p], carrots[p]);
+	}
+
+	private boolean isFirst(int p, int index, int carrotCount) {
+		int o = 1 - p;
+		boolean first = fieldIndex[o] <= index;
+		if (index == GOAL_INDEX && fieldIndex[o] == index) {
+			first = first && carrotCount < carrots[o];
+		}
+		return first;
+	}
+
+	private boolean mustEatSalad(int index, int last) {
+		if (typeAt(index) != SALAD) {
+			return false;
+		}
+		int kind = last & 0xf;
+		return kind == LAST_ADVANCE || kind == LAST_CARD_FALL_BACK || kind == LAST_CARD_HURRY_AHEAD;
+	}
+
+	private boolean playerMustAdvance(int index, int last) {
+		byte type = typeAt(index);
+		if (type == HEDGEHOG || type == START) {
+			return true;
+		}
+		int kind = last & 0xf;
+		return kind == LAST_EAT_SALAD || kind == LAST_CARD_EAT_SALAD || kind == LAST_CARD_TAKE_OR_DROP_CARROTS;
+	}
+
+	public boolean isValidToEat() {
+		int c = current;
+		return typeAt(fieldIndex[c]) == SALAD && salads[c] > 0 && !playerMustAdvance(fieldIndex[c], lastAction[c]);
+	}
+
+	public boolean isValidToExchangeCarrots(int value) {
+		int c = current;
+		boolean onCarrot = typeAt(fieldIndex[c]) == CARROT;
+		if (value == 10) {
+			return onCarrot;
+		} else if (value == -10) {
+			return carrots[c] >= 10 && onCarrot;
+		}
+		return false;
+	}
+
+	public boolean isValidToFallBack() {
+		int c = current;
+		if (mustEatSalad(fieldIndex[c], lastAction[c])) {
+			return false;
+		}
+		int hedgehog = previousField(HEDGEHOG, fieldIndex[c]);
+		return hedgehog != -1 && !isOccupied(hedgehog);
+	}
+
+	public boolean isValidToAdvance(int distance) {
+		int c = current;
+		return isValidToAdvance(distance, fieldIndex[c], carrots[c], salads[c], cards[c], lastAction[c]);
+	}
+
+	private boolean isValidToAdvance(int distance, int index, int carrotCount, int saladCount, int cardMask,
+			int last) {
+		if (distance <= 0 || mustEatSalad(index, last)) {
+			return false;
+		}
+		int cost = BoardIndex.carrotCost(distance);
+		int destination = index + distance;
+		if (cost > carrotCount || isOccupied(destination)) {
+			return false;
+		}
+		byte type = typeAt(destination);
+		if (type == INVALID || type == HEDGEHOG) {
+			return false;
+		} else if (type == SALAD) {
+			return saladCount > 0;
+		} else if (type == HARE) {
+			return canPlayAnyCard(destination, carrotCount - cost, saladCount, cardMask,
+					LAST_ADVANCE | distance << 4);
+		} else if (type == GOAL) {
+			return carrotCount - cost <= 10 && saladCount == 0;
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the player to move can play the given card (one of the card codes
+	 * of {@link Moves}) if he stands at the given index with the given values.
+	 */
+	boolean isValidToPlayCard(int card, int index, int carrotCount, int saladCount, int cardMask, int last) {
+		switch (card) {
+		case Moves.CARD_EAT_SALAD:
+			return isValidToPlayEatSalad(index, saladCount, cardMask, last);
+		case Moves.CARD_FALL_BACK:
+			return isValidToPlayFallBack(index, carrotCount, saladCount, cardMask, last);
+		case Moves.CARD_HURRY_AHEAD:
+			return isValidToPlayHurryAhead(index, carrotCount, saladCount, cardMask, last);
+		default:
+			return isValidToPlayTakeOrDropCarrots(Moves.cardValue(card), index, carrotCount, cardMask, last);
+		}
+	}
+
+	public boolean isValidToPlayCard(int card) {
+		int c = current;
+		return isValidToPlayCard(card, fieldIndex[c], carrots[c], salads[c], cards[c], lastAction[c]);
+	}
+
+	private boolean canPlayAnyCard(int index, int carrotCount, int saladCount, int cardMask, int last) {
+		return (cardMask & EAT_SALAD) != 0 && isValidToPlayEatSalad(index, saladCount, cardMask, last)
+				|| (cardMask & FALL_BACK) != 0 && isValidToPlayFallBack(index, carrotCount, saladCount, cardMask, last)
+				|| (cardMask & HURRY_AHEAD) != 0
+						&& isValidToPlayHurryAhead(index, carrotCount, saladCount, cardMask, last)
+				|| (cardMask & TAKE_OR_DROP_CARROTS) != 0
+						&& isValidToPlayTakeOrDropCarrots(20, index, carrotCount, cardMask, last);
+	}
+
+	private boolean isValidToPlayEatSalad(int index, int saladCount, int cardMask, int last) {
+		return !playerMustAdvance(index, last) && typeAt(index) == HARE && (cardMask & EAT_SALAD) != 0
+				&& saladCount > 0;
+	}
+
+	private boolean isValidToPlayTakeOrDropCarrots(int value, int index, int carrotCount, int cardMask, int last) {
+		boolean valid = !playerMustAdvance(index, last) && typeAt(index) == HARE
+				&& (cardMask & TAKE_OR_DROP_CARROTS) != 0;
+		valid = valid && (value == 20 || value == -20 || value == 0);
+		if (value < 0) {
+			valid = valid && carrotCount + value >= 0;
+		}
+		return valid;
+	}
+
+	private boolean isValidToPlayFallBack(int index, int carrotCount, int saladCount, int cardMask, int last) {
+		int c = current;
+		boolean valid = !playerMustAdvance(index, last) && typeAt(index) == HARE
+				&& isFirst(c, index, carrotCount) && (cardMask & FALL_BACK) != 0;
+		int destination = fieldIndex[1 - c] - 1;
+		if (destination == 0) {
+			return false;
+		}
+		byte type = typeAt(destination);
+		if (type == INVALID || type == HEDGEHOG || type == GOAL) {
+			return false;
+		} else if (type == SALAD) {
+			return valid && saladCount > 0;
+		} else if (type == HARE) {
+			// like the SDK, the remaining cards are checked on the current field
+			return valid && canPlayAnyCard(index, carrotCount, saladCount, cardMask & ~FALL_BACK,
+					LAST_CARD_HURRY_AHEAD);
+		}
+		return valid;
+	}
+
+	private boolean isValidToPlayHurryAhead(int index, int carrotCount, int saladCount, int cardMask, int last) {
+		int c = current;
+		boolean valid = !playerMustAdvance(index, last) && typeAt(index) == HARE
+				&& !isFirst(c, index, carrotCount) && (cardMask & HURRY_AHEAD) != 0;
+		int destination = fieldIndex[1 - c] + 1;
+		byte type = typeAt(destination);
+		if (type == INVALID || type == HEDGEHOG) {
+			return false;
+		} else if (type == SALAD) {
+			return valid && saladCount > 0;
+		} else if (type == HARE) {
+			// like the SDK, the remaining cards are checked on the current field
+			return valid && canPlayAnyCard(index, carrotCount, saladCount, cardMask & ~HURRY_AHEAD,
+					LAST_CARD_HURRY_AHEAD);
+		} else if (type == GOAL) {
+			return valid && carrotCount <= 10 && saladCount == 0;
+		}
+		return valid;
+	}
+
+	/**
+	 * Same win condition as the server, the goal is only checked after both
+	 * players had their turn in a round.
+	 *
+	 * @return {@link #RED} or {@link #BLUE} if the game is over, -1 otherwise
+	 */
+	public int getWinner() {
+		if (turn % 2 == 0) {
+			if (fieldIndex[RED] == GOAL_INDEX) {
+				if (fieldIndex[BLUE] == GOAL_INDEX && carrots[BLUE] < carrots[RED]) {
+					return BLUE;
+				}
+				return RED;
+			}
+			if (fieldIndex[BLUE] == GOAL_INDEX) {
+				return BLUE;
+			}
+		}
+		if (turn >= TURN_LIMIT) {
+			if (fieldIndex[RED] != fieldIndex[BLUE]) {
+				return fieldIndex[RED] > fieldIndex[BLUE] ? RED : BLUE;
+			}
+			return carrots[RED] > carrots[BLUE] ? BLUE : RED;
+		}
+		return -1;
+	}
+
+	/*
+	 * getters and setters
+	 */
+
+	public void setPlayer(int p, int index, int carrotCount, int saladCount, int cardMask, int last) {
+		fieldIndex[p] = index;
+		carrots[p] = carrotCount;
+		salads[p] = saladCount;
+		cards[p] = cardMask;
+		lastAction[p] = last;
+		hash = Zobrist.hash(this);
+	}
+
+	public void setTurn(int turn, int current) {
+		this.turn = turn;
+		this.current = current;
+		hash = Zobrist.hash(this);
+	}
+
+	public byte[] getBoard() {
+		return board;
+	}
+
+	public BoardIndex getBoardIndex() {
+		return boardIndex;
+	}
+
+	public int getCurrent() {
+		return current;
+	}
+
+	public int getTurn() {
+		return turn;
+	}
+
+	public int getFieldIndex(int p) {
+		return fieldIndex[p];
+	}
+
+	public int getCarrots(int p) {
+		return carrots[p];
+	}
+
+	public int getSalads(int p) {
+		return salads[p];
+	}
+
+	public int getCards(int p) {
+		return cards[p];
+	}
+
+	public int getLastAction(int p) {
+		return lastAction[p];
+	}
+
+	public long getHash() {
+		return hash;
+	}
+
+	public boolean samePosition(CompactState other) {
+		for (int p = RED; p <= BLUE; p++) {
+			if (fieldIndex[p] != other.fieldIndex[p] || carrots[p] != other.carrots[p]
+					|| salads[p] != other.salads[p] || cards[p] != other.cards[p]
+					|| lastAction[p] != other.lastAction[p]) {
+				return false;
+			}
+		}
+		return turn == other.turn && current == other.current;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("turn ").append(turn).append(current == RED ? " red" : " blue").append(" to move");
+		for (int p = RED; p <= BLUE; p++) {
+			builder.append(p == RED ? " | red " : " | blue ").append(fieldIndex[p]).append(" carrots ")
+					.append(carrots[p]).append(" salads ").append(salads[p]).append(" cards ")
+					.append(Integer.toBinaryString(cards[p])).append(" last ").append(decodeAction(lastAction[p]));
+		}
+		return builder.toString();
+	}
+}
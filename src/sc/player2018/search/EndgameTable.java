@@ -0,0 +1,197 @@
+package sc.player2018.search;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Exact number of own moves a player needs to reach the goal once all his
+ * salads are eaten, for one board layout. The table is built by retrograde
+ * analysis of the race of a single player from field {@link #FIRST_FIELD} on:
+ * the opponent is assumed to stay behind, so he never blocks a field, position
+ * 1 fields pay 10 carrots, position 2 fields nothing, and the only card that
+ * can be played on a hare field is take or drop carrots. Falling back to a
+ * hedgehog before the first field is not considered.
+ *
+ * Positions are indexed by field, carrots (up to {@link #MAX_CARROTS}) and
+ * whether the take or drop carrots card is still there, one byte each.
+ */
+public class EndgameTable {
+	/** first field of the table, the last salad field before the goal */
+	public static final int FIRST_FIELD = 42;
+	public static final int MAX_CARROTS = 255;
+	/** distance of positions that are not in the table or can not reach the goal */
+	public static final int UNKNOWN = -1;
+
+	private static final int FIELDS = CompactState.GOAL_INDEX - FIRST_FIELD;
+	private static final int MAX_DISTANCE = 255;
+	/** bytes of one table */
+	public static final int SIZE = FIELDS * (MAX_CARROTS + 1) * 2;
+
+	// distance of every position, 0 if unknown
+	private final ByteBuffer distances;
+
+	EndgameTable(ByteBuffer distances) {
+		this.distances = distances;
+	}
+
+	/**
+	 * @return hash of the part of the board the table depends on
+	 */
+	public static long fingerprint(BoardIndex board) {
+		return board.fingerprint(FIRST_FIELD, BoardIndex.SIZE);
+	}
+
+	private static int slot(int index, int carrots, boolean card) {
+		return ((index - FIRST_FIELD) * (MAX_CARROTS + 1) + carrots) * 2 + (card ? 1 : 0);
+	}
+
+	private static boolean inTable(int index, int carrots) {
+		return index >= FIRST_FIELD && index < CompactState.GOAL_INDEX && carrots >= 0 && carrots <= MAX_CARROTS;
+	}
+
+	/**
+	 * @param card
+	 *            whether the player still has the take or drop carrots card
+	 * @return number of moves to the goal, 0 in the goal, {@link #UNKNOWN} if the
+	 *         position is not in the table
+	 */
+	public int distance(int index, int carrots, boolean card) {
+		if (index == CompactState.GOAL_INDEX) {
+			return 0;
+		} else if (!inTable(index, carrots)) {
+			return UNKNOWN;
+		}
+		int distance = distances.get(slot(index, carrots, card)) & 0xff;
+		return distance == 0 ? UNKNOWN : distance;
+	}
+
+	/**
+	 * @return distance of the player to move after the move, {@link #UNKNOWN} if
+	 *         the table does not know it
+	 */
+	public int distanceAfter(CompactState state, int move) {
+		int c = state.current;
+		if (state.salads[c] > 0) {
+			return UNKNOWN;
+		}
+		state.make(move);
+		int index = state.fieldIndex[c];
+		int carrots = state.carrots[c];
+		// the bonus of a position field is paid at the start of our next turn
+		byte type = state.typeAt(index);
+		if (type == CompactState.POSITION_1 && state.isFirst(c)) {
+			carrots += 10;
+		} else if (type == CompactState.POSITION_2 && state.isFirst(1 - c)) {
+			carrots += 30;
+		}
+		boolean card = (state.cards[c] & CompactState.TAKE_OR_DROP_CARROTS) != 0;
+		state.unmake();
+		return distance(index, carrots, card);
+	}
+
+	/**
+	 * @return the move leading to the shortest distance to the goal,
+	 *         {@link Moves#NONE} if the table does not know any of them
+	 */
+	public int bestMove(CompactState state, int[] moves, int count) {
+		int best = Moves.NONE;
+		int bestDistance = Integer.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			int distance = distanceAfter(state, moves[i]);
+			if (distance != UNKNOWN && distance < bestDistance) {
+				bestDistance = distance;
+				best = moves[i];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Builds the table for the board: first all positions one move away from the
+	 * goal are found, then all positions one move away from those and so on.
+	 */
+	public static EndgameTable solve(BoardIndex board) {
+		byte[] distances = new byte[SIZE];
+		for (int level = 1; level <= MAX_DISTANCE; level++) {
+			boolean changed = false;
+			for (int index = FIRST_FIELD; index < CompactState.GOAL_INDEX; index++) {
+				for (int carrots = 0; carrots <= MAX_CARROTS; carrots++) {
+					for (int card = 0; card < 2; card++) {
+						int slot = slot(index, carrots, card == 1);
+						if (distances[slot] == 0 && reaches(board, distances, index, carrots, card == 1, level - 1)) {
+							distances[slot] = (byte) level;
+							changed = true;
+						}
+					}
+				}
+			}
+			if (!changed) {
+				break;
+			}
+		}
+		return new EndgameTable(ByteBuffer.wrap(distances));
+	}
+
+	/**
+	 * @return whether a position with the given distance can be reached in one
+	 *         move
+	 */
+	private static boolean reaches(BoardIndex board, byte[] distances, int index, int carrots, boolean card,
+			int target) {
+		byte type = board.typeAt(index);
+		// hare fields are only reached by playing a card, salad fields by eating
+		// the last salad
+		boolean mustAdvance = type == CompactState.HEDGEHOG || type == CompactState.HARE
+				|| type == CompactState.SALAD;
+		int reach = BoardIndex.maxReach(carrots);
+		for (int distance = 1; distance <= reach; distance++) {
+			int destination = index + distance;
+			if (destination > CompactState.GOAL_INDEX) {
+				break;
+			}
+			int left = carrots - BoardIndex.carrotCost(distance);
+			byte destinationType = board.typeAt(destination);
+			if (destinationType == CompactState.GOAL) {
+				if (left <= 10 && target == 0) {
+					return true;
+				}
+			} else if (destinationType == CompactState.CARROT || destinationType == CompactState.POSITION_2) {
+				if (value(distances, destination, left, card) == target) {
+					return true;
+				}
+			} else if (destinationType == CompactState.POSITION_1) {
+				if (value(distances, destination, left + 10, card) == target) {
+					return true;
+				}
+			} else if (destinationType == CompactState.HARE && card) {
+				if (value(distances, destination, left + 20, false) == target
+						|| value(distances, destination, left, false) == target
+						|| value(distances, destination, left - 20, false) == target) {
+					return true;
+				}
+			}
+			// hedgehog and salad fields can not be entered
+		}
+		if (!mustAdvance && type == CompactState.CARROT && (value(distances, index, carrots + 10, card) == target
+				|| value(distances, index, carrots - 10, card) == target)) {
+			return true;
+		}
+		int hedgehog = board.previous(CompactState.HEDGEHOG, index);
+		return hedgehog >= FIRST_FIELD
+				&& value(distances, hedgehog, carrots + 10 * (index - hedgehog), card) == target;
+	}
+
+	private static int value(byte[] distances, int index, int carrots, boolean card) {
+		if (!inTable(index, carrots)) {
+			return UNKNOWN;
+		}
+		int distance = distances[slot(index, carrots, card)] & 0xff;
+		return distance == 0 ? UNKNOWN : distance;
+	}
+
+	/**
+	 * Writes the table to the buffer, {@link #SIZE} bytes
+	 */
+	void writeTo(ByteBuffer out) {
+		out.put(distances.duplicate());
+	}
+}
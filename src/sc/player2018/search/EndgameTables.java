@@ -0,0 +1,126 @@
+package sc.player2018.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link EndgameTable}s of all layouts seen so far. Tables generated
+ * offline are read from a file that is mapped into memory, so loading it takes
+ * no time; layouts that are not in the file are solved when they are needed
+ * first and kept in memory.
+ *
+ * File format: magic, version, table size and number of tables (ints), the
+ * sorted fingerprints (longs), then the tables in the same order.
+ */
+public class EndgameTables {
+	private static final int MAGIC = 0x48754567; // "HuEg"
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+	// solved tables are dropped when there are more, one is needed per game
+	private static final int MAX_SOLVED = 64;
+
+	private static volatile EndgameTables file;
+	private static final Map<Long, EndgameTable> solved = new ConcurrentHashMap<>();
+
+	private final ByteBuffer buffer;
+	private final long[] fingerprints;
+
+	private EndgameTables(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != EndgameTable.SIZE) {
+			throw new IOException("Not an endgame table file of this version");
+		}
+		this.buffer = buffer;
+		this.fingerprints = new long[buffer.getInt(12)];
+		for (int i = 0; i < fingerprints.length; i++) {
+			fingerprints[i] = buffer.getLong(HEADER + i * 8);
+		}
+	}
+
+	/**
+	 * Maps the file, its tables are used from now on
+	 */
+	public static void load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			file = new EndgameTables(buffer);
+		}
+	}
+
+	/**
+	 * @return number of tables in the loaded file
+	 */
+	public static int getFileTables() {
+		EndgameTables tables = file;
+		return tables == null ? 0 : tables.fingerprints.length;
+	}
+
+	/**
+	 * @return the table of the layout, from the file or solved now
+	 */
+	public static EndgameTable forBoard(BoardIndex board) {
+		long fingerprint = EndgameTable.fingerprint(board);
+		EndgameTables tables = file;
+		if (tables != null) {
+			EndgameTable table = tables.get(fingerprint);
+			if (table != null) {
+				return table;
+			}
+		}
+		if (solved.size() >= MAX_SOLVED) {
+			solved.clear();
+		}
+		return solved.computeIfAbsent(fingerprint, key -> EndgameTable.solve(board));
+	}
+
+	private EndgameTable get(long fingerprint) {
+		int i = Arrays.binarySearch(fingerprints, fingerprint);
+		if (i < 0) {
+			return null;
+		}
+		ByteBuffer table = buffer.duplicate();
+		int offset = HEADER + fingerprints.length * 8 + i * EndgameTable.SIZE;
+		table.position(offset);
+		table.limit(offset + EndgameTable.SIZE);
+		return new EndgameTable(table.slice());
+	}
+
+	/**
+	 * Solves the layouts of the boards and writes their tables to the file
+	 */
+	public static void write(Path path, BoardIndex[] boards) throws IOException {
+		Map<Long, BoardIndex> layouts = new HashMap<>();
+		for (BoardIndex board : boards) {
+			layouts.put(EndgameTable.fingerprint(board), board);
+		}
+		long[] fingerprints = layouts.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER + fingerprints.length * 8);
+			header.putInt(MAGIC).putInt(VERSION).putInt(EndgameTable.SIZE).putInt(fingerprints.length);
+			for (long fingerprint : fingerprints) {
+				header.putLong(fingerprint);
+			}
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			ByteBuffer table = ByteBuffer.allocate(EndgameTable.SIZE);
+			for (long fingerprint : fingerprints) {
+				table.clear();
+				EndgameTable.solve(layouts.get(fingerprint)).writeTo(table);
+				table.flip();
+				while (table.hasRemaining()) {
+					channel.write(table);
+				}
+			}
+		}
+	}
+}
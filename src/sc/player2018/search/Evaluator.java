@@ -0,0 +1,46 @@
+package sc.player2018.search;
+
+import sc.plugin2018.util.Constants;
+
+/**
+ * Static evaluation of a position, used at the leaves of the search
+ */
+public class Evaluator {
+	public static final int WIN = 1000000;
+
+	private static final int GOAL = Constants.NUM_FIELDS - 1;
+
+	/**
+	 * @return score of the position from the point of view of the given player,
+	 *         positive values are good for him
+	 */
+	public static int evaluate(CompactState state, int player, Weights weights) {
+		return playerValue(state, player, weights) - playerValue(state, 1 - player, weights);
+	}
+
+	private static int playerValue(CompactState state, int player, Weights weights) {
+		return playerValue(state.fieldIndex[player], state.carrots[player], state.salads[player],
+				Integer.bitCount(state.cards[player]), weights);
+	}
+
+	static int playerValue(int fieldIndex, int carrots, int salads, int cards, Weights weights) {
+		if (fieldIndex == GOAL) {
+			// fewer carrots are better if both reach the goal
+			return WIN / 2 - carrots;
+		}
+		int value = fieldIndex * weights.get(Weights.Term.FIELD);
+		// every salad left has to be eaten before entering the goal
+		value -= salads * weights.get(Weights.Term.SALAD);
+		// carrots are only worth something as long as we need them to reach the goal
+		int fieldsToGoal = GOAL - fieldIndex;
+		int wanted = weights.get(Weights.Term.CARROT_RESERVE)
+				+ fieldsToGoal * weights.get(Weights.Term.CARROTS_PER_FIELD);
+		if (carrots <= wanted) {
+			value += carrots;
+		} else {
+			value += wanted - (carrots - wanted) * weights.get(Weights.Term.EXCESS_CARROTS_PERCENT) / 100;
+		}
+		value += cards * weights.get(Weights.Term.CARD);
+		return value;
+	}
+}
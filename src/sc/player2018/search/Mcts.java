@@ -0,0 +1,245 @@
+package sc.player2018.search;
+
+import sc.player2018.GameLog;
+
+/**
+ * Monte Carlo tree search (UCT) on a {@link CompactState}. The tree is stored
+ * in preallocated arrays indexed by node, the children of a node are stored
+ * next to each other. Playouts use the {@link RolloutPolicy}.
+ *
+ * The tree is kept between our turns: if the new position is a grandchild of
+ * the last root (our move and the reply of the opponent), the search continues
+ * there. When more than half of the nodes are used at the start of a turn, the
+ * tree is started again.
+ */
+public class Mcts {
+
+	/** Number of nodes if nothing else is configured */
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	private static final double EXPLORATION = 1.4;
+	// playouts are cut off after this many moves and decided by the evaluation
+	private static final int MAX_PLAYOUT = 40;
+
+	private final int capacity;
+	private final Weights weights;
+	private final int[] move;
+	private final int[] firstChild;
+	private final int[] childCount;
+	private final int[] visits;
+	// playouts won by the player who made the move leading to the node
+	private final float[] wins;
+	private int size;
+
+	private int root = -1;
+	private CompactState rootState;
+	private CompactState work;
+
+	private final int[] path = new int[2 * 64];
+	private final int[] buffer = new int[MoveGenerator.MAX_MOVES];
+	private long random = System.nanoTime() | 1;
+	private long playouts;
+
+	public Mcts(int capacity, Weights weights) {
+		this.capacity = capacity;
+		this.weights = weights;
+		move = new int[capacity];
+		firstChild = new int[capacity];
+		childCount = new int[capacity];
+		visits = new int[capacity];
+		wins = new float[capacity];
+	}
+
+	/**
+	 * Searches until the deadline.
+	 *
+	 * @return the most visited move of the root
+	 */
+	public int findMove(CompactState state, long deadline) {
+		playouts = 0;
+		int moveCount = MoveGenerator.generate(state, buffer, 0);
+		if (moveCount == 1) {
+			return buffer[0];
+		}
+		setRoot(state);
+		for (int i = 0; size < capacity || i == 0; i++) {
+			if ((i & 63) == 0 && System.nanoTime() > deadline) {
+				break;
+			}
+			playout();
+		}
+
+		int best = -1;
+		for (int child = firstChild[root]; child < firstChild[root] + childCount[root]; child++) {
+			if (best == -1 || visits[child] > visits[best]) {
+				best = child;
+			}
+		}
+		GameLog.log(GameLog.Event.MCTS_FINISHED, playouts, size);
+		return move[best];
+	}
+
+	/**
+	 * Continues with the subtree of the position if it is known, starts a new
+	 * tree otherwise
+	 */
+	private void setRoot(CompactState state) {
+		int reused = -1;
+		if (root != -1 && rootState.getBoard() == state.getBoard() && size <= capacity / 2) {
+			reused = find(state);
+		}
+		if (reused == -1) {
+			size = 0;
+			reused = newNode(Moves.NONE);
+		}
+		root = reused;
+		rootState = state.copy();
+		work = state.copy();
+		if (childCount[root] == 0) {
+			expand(root, state);
+		}
+	}
+
+	/**
+	 * @return root or grandchild of the root with the given position, -1 if
+	 *         there is none
+	 */
+	private int find(CompactState state) {
+		if (rootState.samePosition(state)) {
+			return root;
+		}
+		CompactState position = rootState.copy();
+		for (int child = firstChild[root]; child < firstChild[root] + childCount[root]; child++) {
+			for (int grandchild = firstChild[child]; grandchild < firstChild[child]
+					+ childCount[child]; grandchild++) {
+				position.set(rootState);
+				position.make(move[child]);
+				position.make(move[grandchild]);
+				if (position.samePosition(state)) {
+					return grandchild;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int newNode(int nodeMove) {
+		int node = size++;
+		move[node] = nodeMove;
+		firstChild[node] = 0;
+		childCount[node] = 0;
+		visits[node] = 0;
+		wins[node] = 0;
+		return node;
+	}
+
+	/**
+	 * Adds all moves of the position as children, if there is enough space left
+	 */
+	private boolean expand(int node, CompactState state) {
+		int count = MoveGenerator.generate(state, buffer, 0);
+		if (size + count > capacity) {
+			return false;
+		}
+		firstChild[node] = size;
+		childCount[node] = count;
+		for (int i = 0; i < count; i++) {
+			newNode(buffer[i]);
+		}
+		return true;
+	}
+
+	/**
+	 * One iteration: selection, expansion, playout and backpropagation
+	 */
+	private void playout() {
+		playouts++;
+		work.set(rootState);
+		int rootPlayer = work.current;
+		int node = root;
+		int depth = 0;
+		path[depth++] = node;
+		while (childCount[node] > 0 && work.getWinner() == -1) {
+			node = select(node);
+			work.make(move[node]);
+			path[depth++] = node;
+			if (visits[node] == 0) {
+				break;
+			}
+		}
+		if (visits[node] > 0 && childCount[node] == 0 && work.getWinner() == -1 && expand(node, work)) {
+			node = firstChild[node] + (int) ((next() >>> 33) % childCount[node]);
+			work.make(move[node]);
+			path[depth++] = node;
+		}
+
+		int winner = rollout(work);
+		for (int i = 0; i < depth; i++) {
+			int n = path[i];
+			visits[n]++;
+			// the move into a node at an odd depth was made by the player at the root
+			int mover = i % 2 == 1 ? rootPlayer : 1 - rootPlayer;
+			if (winner == mover) {
+				wins[n]++;
+			}
+		}
+	}
+
+	private int select(int node) {
+		int first = firstChild[node];
+		int count = childCount[node];
+		double logVisits = Math.log(Math.max(1, visits[node]));
+		int best = first;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int child = first; child < first + count; child++) {
+			if (visits[child] == 0) {
+				return child;
+			}
+			double value = wins[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+			if (value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Plays the game to its end (or until the playout is cut off).
+	 *
+	 * @return winner of the game
+	 */
+	private int rollout(CompactState state) {
+		for (int ply = 0; ply < MAX_PLAYOUT; ply++) {
+			int winner = state.getWinner();
+			if (winner != -1) {
+				return winner;
+			}
+			int count = MoveGenerator.generate(state, buffer, 0);
+			state.make(buffer[RolloutPolicy.choose(state, buffer, count, next(), weights)]);
+		}
+		int winner = state.getWinner();
+		if (winner != -1) {
+			return winner;
+		}
+		return Evaluator.evaluate(state, CompactState.RED, weights) >= 0 ? CompactState.RED : CompactState.BLUE;
+	}
+
+	/**
+	 * xorshift random numbers, cheaper than {@link java.util.Random}
+	 */
+	private long next() {
+		random ^= random << 13;
+		random ^= random >>> 7;
+		random ^= random << 17;
+		return random;
+	}
+
+	public long getPlayouts() {
+		return playouts;
+	}
+
+	public int getSize() {
+		return size;
+	}
+}
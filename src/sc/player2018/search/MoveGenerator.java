@@ -0,0 +1,100 @@
+package sc.player2018.search;
+
+import sc.plugin2018.GameState;
+
+/**
+ * Generates all legal moves of a {@link CompactState} as encoded ints (see
+ * {@link Moves}) into a buffer given by the caller. Produces the same moves in
+ * the same order as {@link GameState#getPossibleMoves()} without creating any
+ * objects.
+ */
+public class MoveGenerator {
+	/**
+	 * Upper bound for the number of moves of one position, buffers should have
+	 * at least this size
+	 */
+	public static final int MAX_MOVES = 256;
+
+	private static final int[] CARDS_IN_ORDER = { Moves.CARD_EAT_SALAD, Moves.CARD_TAKE_20, Moves.CARD_DROP_20,
+			Moves.CARD_TAKE_0 };
+
+	/**
+	 * @return number of moves written to the buffer starting at the offset
+	 */
+	public static int generate(CompactState state, int[] buffer, int offset) {
+		int c = state.current;
+		int count = offset;
+		if (state.isValidToEat()) {
+			buffer[count++] = Moves.EAT_SALAD;
+			return count - offset;
+		}
+		if (state.isValidToExchangeCarrots(10)) {
+			buffer[count++] = Moves.TAKE_CARROTS;
+		}
+		if (state.isValidToExchangeCarrots(-10)) {
+			buffer[count++] = Moves.DROP_CARROTS;
+		}
+		if (state.isValidToFallBack()) {
+			buffer[count++] = Moves.FALL_BACK;
+		}
+		int index = state.fieldIndex[c];
+		int carrots = state.carrots[c];
+		int maxDistance = BoardIndex.maxReach(carrots);
+		for (int distance = 1; distance <= maxDistance; distance++) {
+			if (!state.isValidToAdvance(distance)) {
+				continue;
+			}
+			int destination = index + distance;
+			int move = Moves.advance(distance);
+			if (state.typeAt(destination) == CompactState.HARE) {
+				count = addCards(state, move, destination, carrots - BoardIndex.carrotCost(distance),
+						state.salads[c], state.cards[c], CompactState.LAST_ADVANCE | distance << 4, buffer, count);
+			} else {
+				count = add(buffer, count, move);
+			}
+		}
+		if (count == offset) {
+			buffer[count++] = Moves.SKIP;
+		}
+		return count - offset;
+	}
+
+	/**
+	 * Appends every card (or chain of cards) that can be played after the given
+	 * move ended on a hare field, in the order of the SDK.
+	 */
+	private static int addCards(CompactState state, int move, int index, int carrots, int salads, int cards,
+			int last, int[] buffer, int count) {
+		for (int card : CARDS_IN_ORDER) {
+			if (state.isValidToPlayCard(card, index, carrots, salads, cards, last)) {
+				count = add(buffer, count, Moves.withCard(move, card));
+			}
+		}
+		int opponentIndex = state.fieldIndex[1 - state.current];
+		if (state.isValidToPlayCard(Moves.CARD_HURRY_AHEAD, index, carrots, salads, cards, last)) {
+			count = addJump(state, Moves.withCard(move, Moves.CARD_HURRY_AHEAD), opponentIndex + 1, carrots, salads,
+					cards & ~CompactState.HURRY_AHEAD, CompactState.LAST_CARD_HURRY_AHEAD, buffer, count);
+		}
+		if (state.isValidToPlayCard(Moves.CARD_FALL_BACK, index, carrots, salads, cards, last)) {
+			count = addJump(state, Moves.withCard(move, Moves.CARD_FALL_BACK), opponentIndex - 1, carrots, salads,
+					cards & ~CompactState.FALL_BACK, CompactState.LAST_CARD_FALL_BACK, buffer, count);
+		}
+		return count;
+	}
+
+	private static int addJump(CompactState state, int move, int destination, int carrots, int salads, int cards,
+			int last, int[] buffer, int count) {
+		if (state.typeAt(destination) == CompactState.HARE) {
+			// landed on another hare field, the next card has to be played
+			return addCards(state, move, destination, carrots, salads, cards, last, buffer, count);
+		}
+		return add(buffer, count, move);
+	}
+
+	private static int add(int[] buffer, int count, int move) {
+		if (count < buffer.length) {
+			buffer[count++] = move;
+		}
+		return count;
+	}
+}
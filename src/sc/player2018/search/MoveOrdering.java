@@ -0,0 +1,154 @@
+package sc.player2018.search;
+
+import java.util.Arrays;
+
+/**
+ * Orders the moves of a node of the {@link Search}, so the move most likely to
+ * cause a cutoff is searched first:
+ *
+ * <ol>
+ * <li>the best move stored in the transposition table</li>
+ * <li>advances into the goal</li>
+ * <li>the two killer moves of the ply, which caused the last cutoffs at the
+ * same distance to the root</li>
+ * <li>moves the phase logic likes: eating a salad (also by card or by
+ * advancing to a salad field) and advances to a position field that pays
+ * carrots</li>
+ * <li>the history score of the move, counting the cutoffs it caused anywhere
+ * in the tree</li>
+ * </ol>
+ *
+ * The history is indexed by side and the type, distance and first card of the
+ * encoded move (its lowest 12 bits, see {@link Moves}). It is halved at the
+ * start of every search, so results of earlier turns fade but still help.
+ */
+public class MoveOrdering {
+	private static final int TABLE_MOVE = 1 << 30;
+	private static final int WIN = 1 << 29;
+	private static final int KILLER = 1 << 28;
+	private static final int SALAD = 1 << 27;
+	private static final int POSITION = 1 << 26;
+	// history scores stay below the static cues, all of them are halved if one
+	// gets larger
+	private static final int HISTORY_MAX = POSITION - 1;
+	private static final int HISTORY_BITS = 12;
+	private static final int HISTORY_MASK = (1 << HISTORY_BITS) - 1;
+	private static final int GOAL = BoardIndex.SIZE - 1;
+
+	// two per ply, the newer one first
+	private final int[] killers;
+	private final int[] history = new int[2 << HISTORY_BITS];
+	private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * @param maxPly
+	 *            largest distance to the root that is ordered
+	 */
+	public MoveOrdering(int maxPly) {
+		killers = new int[2 * (maxPly + 1)];
+	}
+
+	/**
+	 * Sorts the moves by their score, highest first
+	 *
+	 * @param tableMove
+	 *            best move of the transposition table, {@link Moves#NONE} if
+	 *            there is none
+	 */
+	public void order(CompactState state, int[] moves, int count, int ply, int tableMove) {
+		int side = state.getCurrent();
+		int index = state.getFieldIndex(side);
+		int other = state.getFieldIndex(1 - side);
+		int killer1 = killers[2 * ply];
+		int killer2 = killers[2 * ply + 1];
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			int score;
+			if (move == tableMove) {
+				score = TABLE_MOVE;
+			} else if (Moves.type(move) == Moves.ADVANCE && index + Moves.distance(move) == GOAL) {
+				score = WIN;
+			} else if (move == killer1) {
+				score = KILLER + 1;
+			} else if (move == killer2) {
+				score = KILLER;
+			} else {
+				score = cue(state, move, index, other) + history[side << HISTORY_BITS | move & HISTORY_MASK];
+			}
+			scores[i] = score;
+		}
+		// insertion sort, there are only a few dozen moves
+		for (int i = 1; i < count; i++) {
+			int move = moves[i];
+			int score = scores[i];
+			int j = i - 1;
+			while (j >= 0 && scores[j] < score) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+		}
+	}
+
+	/**
+	 * @return score of the heuristics of the phase logic
+	 */
+	private static int cue(CompactState state, int move, int index, int other) {
+		int type = Moves.type(move);
+		if (type == Moves.EAT_SALAD) {
+			return SALAD;
+		}
+		if (type != Moves.ADVANCE) {
+			return 0;
+		}
+		int cards = Moves.cardCount(move);
+		for (int i = 0; i < cards; i++) {
+			if (Moves.card(move, i) == Moves.CARD_EAT_SALAD) {
+				return SALAD;
+			}
+		}
+		if (cards > 0) {
+			// where the cards end up is not worth working out here
+			return 0;
+		}
+		int destination = index + Moves.distance(move);
+		byte field = state.typeAt(destination);
+		if (field == CompactState.SALAD) {
+			return SALAD;
+		} else if (field == CompactState.POSITION_1 && destination > other
+				|| field == CompactState.POSITION_2 && destination < other) {
+			return POSITION;
+		}
+		return 0;
+	}
+
+	/**
+	 * Remembers a move that caused a beta cutoff
+	 */
+	public void cutoff(int move, int side, int ply, int depth) {
+		if (killers[2 * ply] != move) {
+			killers[2 * ply + 1] = killers[2 * ply];
+			killers[2 * ply] = move;
+		}
+		int slot = side << HISTORY_BITS | move & HISTORY_MASK;
+		history[slot] += depth * depth;
+		if (history[slot] > HISTORY_MAX) {
+			for (int i = 0; i < history.length; i++) {
+				history[i] >>= 1;
+			}
+		}
+	}
+
+	/**
+	 * Called before every search: the killers belong to the plies of the last
+	 * root and are cleared, the history is halved
+	 */
+	public void age() {
+		Arrays.fill(killers, Moves.NONE);
+		for (int i = 0; i < history.length; i++) {
+			history[i] >>= 1;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package sc.player2018.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sc.plugin2018.Action;
+import sc.plugin2018.Advance;
+import sc.plugin2018.Card;
+import sc.plugin2018.CardType;
+import sc.plugin2018.EatSalad;
+import sc.plugin2018.ExchangeCarrots;
+import sc.plugin2018.FallBack;
+import sc.plugin2018.Move;
+import sc.plugin2018.Skip;
+
+/**
+ * Encoding of a whole move into a single int, so the search never has to
+ * create {@link Move} or {@link Action} objects.
+ *
+ * <pre>
+ * bits  0-2  type of the first action
+ * bits  3-8  distance of an advance
+ * bits 9-20  up to four cards played after the advance, three bits each
+ * </pre>
+ *
+ * 0 is never a valid move and can be used as "no move".
+ */
+public class Moves {
+	public static final int NONE = 0;
+
+	public static final int ADVANCE = 1;
+	public static final int EAT_SALAD = 2;
+	public static final int TAKE_CARROTS = 3;
+	public static final int DROP_CARROTS = 4;
+	public static final int FALL_BACK = 5;
+	public static final int SKIP = 6;
+
+	public static final int CARD_EAT_SALAD = 1;
+	public static final int CARD_FALL_BACK = 2;
+	public static final int CARD_HURRY_AHEAD = 3;
+	public static final int CARD_TAKE_20 = 4;
+	public static final int CARD_DROP_20 = 5;
+	public static final int CARD_TAKE_0 = 6;
+
+	public static final int MAX_CARDS = 4;
+
+	private static final int TYPE_MASK = 0x7;
+	private static final int DISTANCE_SHIFT = 3;
+	private static final int DISTANCE_MASK = 0x3f;
+	private static final int CARD_SHIFT = 9;
+	private static final int CARD_BITS = 3;
+	private static final int CARD_MASK = 0x7;
+
+	public static int advance(int distance) {
+		return ADVANCE | distance << DISTANCE_SHIFT;
+	}
+
+	/**
+	 * @return the given move with the card appended after its last action
+	 */
+	public static int withCard(int move, int card) {
+		return move | card << (CARD_SHIFT + CARD_BITS * cardCount(move));
+	}
+
+	public static int type(int move) {
+		return move & TYPE_MASK;
+	}
+
+	public static int distance(int move) {
+		return move >>> DISTANCE_SHIFT & DISTANCE_MASK;
+	}
+
+	public static int card(int move, int i) {
+		return move >>> (CARD_SHIFT + CARD_BITS * i) & CARD_MASK;
+	}
+
+	public static int cardCount(int move) {
+		int count = 0;
+		while (count < MAX_CARDS && card(move, count) != 0) {
+			count++;
+		}
+		return count;
+	}
+
+	public static CardType cardType(int card) {
+		switch (card) {
+		case CARD_EAT_SALAD:
+			return CardType.EAT_SALAD;
+		case CARD_FALL_BACK:
+			return CardType.FALL_BACK;
+		case CARD_HURRY_AHEAD:
+			return CardType.HURRY_AHEAD;
+		default:
+			return CardType.TAKE_OR_DROP_CARROTS;
+		}
+	}
+
+	public static int cardValue(int card) {
+		switch (card) {
+		case CARD_TAKE_20:
+			return 20;
+		case CARD_DROP_20:
+			return -20;
+		default:
+			return 0;
+		}
+	}
+
+	static int cardCode(CardType type, int value) {
+		switch (type) {
+		case EAT_SALAD:
+			return CARD_EAT_SALAD;
+		case FALL_BACK:
+			return CARD_FALL_BACK;
+		case HURRY_AHEAD:
+			return CARD_HURRY_AHEAD;
+		default:
+			return value > 0 ? CARD_TAKE_20 : value < 0 ? CARD_DROP_20 : CARD_TAKE_0;
+		}
+	}
+
+	/**
+	 * Builds the move that is sent to the server, this is the only place where
+	 * {@link Move} objects are created from encoded moves.
+	 */
+	public static Move toMove(int move) {
+		List<Action> actions = new ArrayList<>();
+		switch (type(move)) {
+		case ADVANCE:
+			actions.add(new Advance(distance(move), 0));
+			break;
+		case EAT_SALAD:
+			actions.add(new EatSalad(0));
+			break;
+		case TAKE_CARROTS:
+			actions.add(new ExchangeCarrots(10, 0));
+			break;
+		case DROP_CARROTS:
+			actions.add(new ExchangeCarrots(-10, 0));
+			break;
+		case FALL_BACK:
+			actions.add(new FallBack(0));
+			break;
+		default:
+			actions.add(new Skip(0));
+		}
+		for (int i = 0; i < MAX_CARDS; i++) {
+			int card = card(move, i);
+			if (card == 0) {
+				break;
+			}
+			actions.add(new Card(cardType(card), cardValue(card), i + 1));
+		}
+		return new Move(actions);
+	}
+
+	public static int fromMove(Move move) {
+		List<Action> actions = new ArrayList<>(move.getActions());
+		actions.sort(Action::compareTo);
+		int encoded = NONE;
+		for (Action action : actions) {
+			if (action instanceof Advance) {
+				encoded |= advance(((Advance) action).getDistance());
+			} else if (action instanceof EatSalad) {
+				encoded |= EAT_SALAD;
+			} else if (action instanceof ExchangeCarrots) {
+				encoded |= ((ExchangeCarrots) action).getValue() > 0 ? TAKE_CARROTS : DROP_CARROTS;
+			} else if (action instanceof FallBack) {
+				encoded |= FALL_BACK;
+			} else if (action instanceof Skip) {
+				encoded |= SKIP;
+			} else if (action instanceof Card) {
+				Card card = (Card) action;
+				encoded = withCard(encoded, cardCode(card.getType(), card.getValue()));
+			}
+		}
+		return encoded;
+	}
+
+	public static String toString(int move) {
+		StringBuilder builder = new StringBuilder();
+		switch (type(move)) {
+		case ADVANCE:
+			builder.append("Advance ").append(distance(move));
+			break;
+		case EAT_SALAD:
+			builder.append("EatSalad");
+			break;
+		case TAKE_CARROTS:
+			builder.append("ExchangeCarrots 10");
+			break;
+		case DROP_CARROTS:
+			builder.append("ExchangeCarrots -10");
+			break;
+		case FALL_BACK:
+			builder.append("FallBack");
+			break;
+		case SKIP:
+			builder.append("Skip");
+			break;
+		default:
+			return "None";
+		}
+		for (int i = 0; i < cardCount(move); i++) {
+			int card = card(move, i);
+			builder.append(", Card ").append(cardType(card));
+			if (cardType(card) == CardType.TAKE_OR_DROP_CARROTS) {
+				builder.append(' ').append(cardValue(card));
+			}
+		}
+		return builder.toString();
+	}
+}
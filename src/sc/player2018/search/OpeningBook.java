@@ -0,0 +1,115 @@
+package sc.player2018.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Moves for the first positions of a game, found by long searches offline.
+ * Positions are keyed by their {@link Zobrist} hash combined with the layout
+ * of the first {@link #BOOK_FIELDS} fields, the only ones the first moves can
+ * reach. The file is mapped into memory and searched in place.
+ *
+ * File format: magic, version and number of entries (ints), then the entries
+ * sorted by key, each a key (long) and a move (int).
+ */
+public class OpeningBook {
+	/** start, the first shuffled fields, the first salad and hedgehog field */
+	public static final int BOOK_FIELDS = 12;
+
+	private static final int MAGIC = 0x48754f62; // "HuOb"
+	private static final int VERSION = 1;
+	private static final int HEADER = 12;
+	private static final int ENTRY = 12;
+
+	private static volatile OpeningBook book;
+
+	private final ByteBuffer buffer;
+	private final int size;
+
+	private OpeningBook(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not an opening book of this version");
+		}
+		this.buffer = buffer;
+		this.size = buffer.getInt(8);
+	}
+
+	/**
+	 * Maps the file, it is used for all games from now on
+	 */
+	public static void load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			book = new OpeningBook(buffer);
+		}
+	}
+
+	/**
+	 * @return number of positions in the loaded book
+	 */
+	public static int getSize() {
+		OpeningBook current = book;
+		return current == null ? 0 : current.size;
+	}
+
+	public static long key(CompactState state) {
+		return state.getHash() ^ state.getBoardIndex().fingerprint(0, BOOK_FIELDS);
+	}
+
+	/**
+	 * @return the book move of the position, {@link Moves#NONE} if there is no
+	 *         book or the position is not in it
+	 */
+	public static int probe(CompactState state) {
+		OpeningBook current = book;
+		if (current == null) {
+			return Moves.NONE;
+		}
+		return current.find(key(state));
+	}
+
+	private int find(long key) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long found = buffer.getLong(HEADER + middle * ENTRY);
+			if (found < key) {
+				low = middle + 1;
+			} else if (found > key) {
+				high = middle - 1;
+			} else {
+				return buffer.getInt(HEADER + middle * ENTRY + 8);
+			}
+		}
+		return Moves.NONE;
+	}
+
+	/**
+	 * Writes a book, the entries do not have to be sorted
+	 */
+	public static void write(Path path, long[] keys, int[] moves, int count) throws IOException {
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+		ByteBuffer out = ByteBuffer.allocate(HEADER + count * ENTRY);
+		out.putInt(MAGIC).putInt(VERSION).putInt(count);
+		for (int i : order) {
+			out.putLong(keys[i]).putInt(moves[i]);
+		}
+		out.flip();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package sc.player2018.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lazy SMP: the calling thread and a number of helper threads search the same
+ * position independently and only share the transposition table. The helpers
+ * start at different depths, so they fill the table with results the main
+ * search can use.
+ *
+ * The main search decides when to stop, afterwards the helpers are stopped and
+ * the move of the deepest finished iteration of all threads is returned. With
+ * one thread no helpers are created and the search runs as before.
+ */
+public class ParallelSearch {
+	private static final Logger log = LoggerFactory.getLogger(ParallelSearch.class);
+
+	private final TranspositionTable table;
+	private final Search main;
+	private final Search[] helpers;
+	private final ExecutorService pool;
+	// by helper, null if it could not be started
+	private final List<Future<Integer>> results;
+
+	private long nodes;
+	private int completedDepth;
+
+	/**
+	 * @param tableSizeMb
+	 *            size of the shared transposition table in megabytes
+	 * @param threads
+	 *            number of searching threads including the calling one
+	 * @param weights
+	 *            weights of the evaluation
+	 */
+	public ParallelSearch(int tableSizeMb, int threads, Weights weights) {
+		table = new TranspositionTable(tableSizeMb);
+		main = new Search(table, weights);
+		helpers = new Search[Math.max(0, threads - 1)];
+		for (int i = 0; i < helpers.length; i++) {
+			helpers[i] = new Search(table, weights);
+		}
+		results = new ArrayList<>(Collections.<Future<Integer>> nCopies(helpers.length, null));
+		if (helpers.length > 0) {
+			pool = Executors.newFixedThreadPool(helpers.length, runnable -> {
+				Thread thread = new Thread(runnable, "search-helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			pool = null;
+		}
+	}
+
+	/**
+	 * @see Search#findMove(CompactState, long, long)
+	 */
+	public int findMove(CompactState state, long softDeadline, long hardDeadline) {
+		table.newSearch();
+		main.reset();
+		for (int i = 0; i < helpers.length; i++) {
+			Search helper = helpers[i];
+			helper.reset();
+			CompactState copy = state.copy();
+			// staggered start depths, so the helpers do not all search the same tree
+			int startDepth = 1 + (i + 1) / 2 % 3;
+			try {
+				results.set(i, pool.submit(() -> helper.iterate(copy, hardDeadline, hardDeadline, startDepth)));
+			} catch (RejectedExecutionException e) {
+				log.warn("Could not start search helper", e);
+				results.set(i, null);
+			}
+		}
+
+		int bestMove = main.iterate(state, softDeadline, hardDeadline, 1);
+		completedDepth = main.getCompletedDepth();
+		nodes = main.getNodes();
+
+		for (Search helper : helpers) {
+			helper.stop();
+		}
+		for (int i = 0; i < helpers.length; i++) {
+			if (results.get(i) == null) {
+				continue;
+			}
+			try {
+				int move = results.get(i).get();
+				nodes += helpers[i].getNodes();
+				if (move != Moves.NONE && helpers[i].getCompletedDepth() > completedDepth) {
+					bestMove = move;
+					completedDepth = helpers[i].getCompletedDepth();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				log.error("Search helper failed", e.getCause());
+			}
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Searches to a fixed depth on the calling thread only, the helpers would
+	 * make the move depend on the timing of the threads
+	 *
+	 * @see Search#findMove(CompactState, int)
+	 */
+	public int findMove(CompactState state, int depth) {
+		int bestMove = main.findMove(state, depth);
+		completedDepth = main.getCompletedDepth();
+		nodes = main.getNodes();
+		return bestMove;
+	}
+
+	/**
+	 * Stops a running search from another thread. A search that has not reset
+	 * its stop flag yet may miss the call, callers should repeat it until the
+	 * search returned.
+	 */
+	public void stop() {
+		main.stop();
+		for (Search helper : helpers) {
+			helper.stop();
+		}
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	public int getThreads() {
+		return helpers.length + 1;
+	}
+
+	/**
+	 * @return deepest iteration finished by any thread in the last search
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/**
+	 * @return nodes searched by all threads in the last search
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+}
@@ -0,0 +1,120 @@
+package sc.player2018.search;
+
+import sc.player2018.GameLog;
+
+/**
+ * Searches during the turn of the opponent. The reply of the opponent is
+ * predicted with the best move stored in the transposition table, the position
+ * after it is searched until {@link #stop()} is called. If the prediction comes
+ * true, the result can be used directly and the table holds the deeper
+ * results; if there is no prediction, the position of the opponent is searched
+ * to fill the table.
+ */
+public class Ponderer {
+
+	// pondering runs until it is stopped, this is only a limit for forgotten stops
+	private static final long MAX_PONDER_TIME = 10 * 60 * 1000000000L;
+
+	private final ParallelSearch search;
+	private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+	private Thread thread;
+
+	// results, only read after the thread was joined
+	private CompactState expected;
+	private int move;
+	private int depth;
+
+	public Ponderer(ParallelSearch search) {
+		this.search = search;
+	}
+
+	/**
+	 * Starts pondering in the background, a running ponder search is stopped
+	 * first.
+	 *
+	 * @param state
+	 *            position with the opponent to move, it is not changed
+	 */
+	public void start(CompactState state) {
+		stop();
+		expected = null;
+		move = Moves.NONE;
+		depth = 0;
+		CompactState position = state.copy();
+		thread = new Thread(() -> ponder(position), "ponder");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void ponder(CompactState position) {
+		int prediction = predict(position);
+		if (prediction != Moves.NONE) {
+			position.make(prediction);
+			expected = position.copy();
+		}
+		long now = System.nanoTime();
+		int result = search.findMove(position, now + MAX_PONDER_TIME, now + MAX_PONDER_TIME);
+		if (expected != null) {
+			move = result;
+			depth = search.getCompletedDepth();
+		}
+	}
+
+	/**
+	 * @return best move of the table if it is legal in the position
+	 */
+	private int predict(CompactState position) {
+		long entry = search.getTable().probe(position.hash);
+		if (entry == 0) {
+			return Moves.NONE;
+		}
+		int prediction = TranspositionTable.move(entry);
+		int moveCount = MoveGenerator.generate(position, moveBuffer, 0);
+		for (int i = 0; i < moveCount; i++) {
+			if (moveBuffer[i] == prediction) {
+				return prediction;
+			}
+		}
+		return Moves.NONE;
+	}
+
+	/**
+	 * Stops pondering and waits for the search thread to end, returns at once
+	 * if nothing is running.
+	 */
+	public void stop() {
+		if (thread == null) {
+			return;
+		}
+		try {
+			while (thread.isAlive()) {
+				search.stop();
+				thread.join(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+
+	/**
+	 * Has to be called after {@link #stop()}.
+	 *
+	 * @return move found while pondering if the given position is the predicted
+	 *         one, {@link Moves#NONE} otherwise
+	 */
+	public int getMove(CompactState state) {
+		if (expected == null || !expected.samePosition(state)) {
+			return Moves.NONE;
+		}
+		GameLog.log(GameLog.Event.PONDER_HIT, depth);
+		return move;
+	}
+
+	/**
+	 * @return depth of the result returned by {@link #getMove(CompactState)}
+	 */
+	public int getDepth() {
+		return depth;
+	}
+}
@@ -0,0 +1,82 @@
+package sc.player2018.search;
+
+/**
+ * Move choice of the playouts of {@link Mcts}. The rating is the one of
+ * LogicHelper.getMoveRating, ported to encoded moves: only the first action of
+ * a move counts, moves the heuristic has no opinion about get the lowest
+ * rating. Most of the time the best rated move is played (ties broken at
+ * random), sometimes a random one.
+ */
+public class RolloutPolicy {
+	private static final int RANDOM_MOVES = 4; // one in ...
+
+	/**
+	 * @return rating of the move for the player to move, higher is better
+	 */
+	public static int rate(CompactState state, int move, Weights weights) {
+		int c = state.current;
+		int index = state.fieldIndex[c];
+		int carrots = state.carrots[c];
+		switch (Moves.type(move)) {
+		case Moves.ADVANCE:
+			int distance = Moves.distance(move);
+			int destination = index + distance;
+			if (destination == CompactState.GOAL_INDEX) {
+				// winning move
+				return Integer.MAX_VALUE;
+			} else if (state.typeAt(destination) == CompactState.SALAD) {
+				return weights.get(Weights.Term.RATE_SALAD_ADVANCE);
+			}
+			int carrotsNeededToGoal = BoardIndex.carrotCost(CompactState.GOAL_INDEX - destination)
+					+ BoardIndex.carrotCost(distance);
+			return weights.get(Weights.Term.RATE_CARROT_TARGET) - (carrots - carrotsNeededToGoal);
+		case Moves.EAT_SALAD:
+			return weights.get(Weights.Term.RATE_EAT_SALAD);
+		case Moves.DROP_CARROTS:
+			if (carrots > 30 && index >= 40) {
+				// only remove carrots if at end
+				return weights.get(Weights.Term.RATE_DROP_CARROTS);
+			}
+			return Integer.MIN_VALUE;
+		case Moves.FALL_BACK:
+			if (index > 56 && state.salads[c] > 0) {
+				// fall back if you are at the end and have not eaten all the salads
+				return weights.get(Weights.Term.RATE_FALL_BACK);
+			}
+			return Integer.MIN_VALUE;
+		default:
+			return Integer.MIN_VALUE;
+		}
+	}
+
+	/**
+	 * @param random
+	 *            random number, only the lower 32 bits are used
+	 * @return index of the chosen move
+	 */
+	public static int choose(CompactState state, int[] moves, int count, long random, Weights weights) {
+		int bits = (int) random;
+		if (((bits >>> 16) & 0xff) % RANDOM_MOVES == 0) {
+			return (bits & 0xffff) % count;
+		}
+		int best = 0;
+		int bestRating = Integer.MIN_VALUE;
+		int ties = 0;
+		for (int i = 0; i < count; i++) {
+			int rating = rate(state, moves[i], weights);
+			if (rating > bestRating) {
+				bestRating = rating;
+				best = i;
+				ties = 1;
+			} else if (rating == bestRating) {
+				// reservoir sampling among the equally rated moves
+				ties++;
+				bits = bits * 1103515245 + 12345;
+				if (((bits >>> 8) & 0xffff) % ties == 0) {
+					best = i;
+				}
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,320 @@
+package sc.player2018.search;
+
+import sc.player2018.GameLog;
+import sc.plugin2018.GameState;
+import sc.plugin2018.Move;
+import sc.plugin2018.util.Constants;
+
+/**
+ * Iterative deepening alpha-beta search (negamax formulation) on a
+ * {@link CompactState}. Every iteration searches one ply deeper, the move of
+ * the deepest finished iteration is returned once the deadline is reached.
+ */
+public class Search {
+
+	private static final int INFINITY = Integer.MAX_VALUE - 1;
+	private static final int MAX_DEPTH = 2 * Constants.ROUND_LIMIT;
+	private static final int TURN_LIMIT = 2 * Constants.ROUND_LIMIT;
+	// scores above are wins found by the search, their distance to the root is
+	// not stored in the table
+	private static final int WIN_BOUND = Evaluator.WIN - 2 * MAX_DEPTH;
+
+	/** Size of the transposition table if nothing else is configured */
+	public static final int DEFAULT_TABLE_SIZE = 64;
+
+	private final int[][] moves = new int[MAX_DEPTH + 1][MoveGenerator.MAX_MOVES];
+	private final TranspositionTable table;
+	private final Weights weights;
+	private final MoveOrdering ordering = new MoveOrdering(MAX_DEPTH);
+	// without it only the move of the table is searched first
+	private boolean orderMoves = true;
+
+	private long deadline;
+	private boolean stopped;
+	// set by other threads to stop the search early
+	private volatile boolean aborted;
+	private long nodes;
+	private int completedDepth;
+	private int bestMove;
+
+	/**
+	 * @param tableSizeMb
+	 *            size of the transposition table in megabytes
+	 */
+	public Search(int tableSizeMb) {
+		this(new TranspositionTable(tableSizeMb));
+	}
+
+	/**
+	 * @param table
+	 *            transposition table, can be shared with searches running in
+	 *            other threads
+	 */
+	public Search(TranspositionTable table) {
+		this(table, Weights.DEFAULT);
+	}
+
+	/**
+	 * @param weights
+	 *            weights of the evaluation
+	 */
+	public Search(TranspositionTable table, Weights weights) {
+		this.table = table;
+		this.weights = weights;
+	}
+
+	/**
+	 * Searches the given position until the deadline is reached.
+	 *
+	 * @param deadline
+	 *            value of {@link System#nanoTime()} at which the search has to stop
+	 * @return best move of the deepest finished iteration, null if not even the
+	 *         first iteration could be finished
+	 */
+	public Move findMove(GameState gameState, long deadline) {
+		int move = findMove(CompactState.fromGameState(gameState), deadline);
+		return move == Moves.NONE ? null : Moves.toMove(move);
+	}
+
+	/**
+	 * @return encoded best move of the deepest finished iteration,
+	 *         {@link Moves#NONE} if not even the first iteration could be finished
+	 */
+	public int findMove(CompactState state, long deadline) {
+		return findMove(state, deadline, deadline);
+	}
+
+	/**
+	 * @param softDeadline
+	 *            no new iteration is started after this time
+	 * @param hardDeadline
+	 *            running iterations are stopped at this time
+	 * @return encoded best move of the deepest finished iteration,
+	 *         {@link Moves#NONE} if not even the first iteration could be finished
+	 */
+	public int findMove(CompactState state, long softDeadline, long hardDeadline) {
+		table.newSearch();
+		aborted = false;
+		return iterate(state, softDeadline, hardDeadline, 1);
+	}
+
+	/**
+	 * Searches the given position to a fixed depth without a deadline, e.g. to
+	 * compare the number of nodes.
+	 *
+	 * @return encoded best move, {@link Moves#NONE} if the search was stopped
+	 *         before the first iteration finished
+	 */
+	public int findMove(CompactState state, int depth) {
+		table.newSearch();
+		aborted = false;
+		return iterate(state, Long.MAX_VALUE, Long.MAX_VALUE, 1, depth);
+	}
+
+	/**
+	 * Iterative deepening starting at the given depth, the table is not reset
+	 * and an earlier call of {@link #stop()} is not cleared.
+	 */
+	int iterate(CompactState state, long softDeadline, long hardDeadline, int startDepth) {
+		return iterate(state, softDeadline, hardDeadline, startDepth, MAX_DEPTH);
+	}
+
+	private int iterate(CompactState state, long softDeadline, long hardDeadline, int startDepth, int maxDepth) {
+		this.deadline = hardDeadline;
+		this.stopped = false;
+		this.nodes = 0;
+		this.completedDepth = 0;
+		this.bestMove = Moves.NONE;
+
+		int[] rootMoves = moves[0];
+		int moveCount = MoveGenerator.generate(state, rootMoves, 0);
+		if (moveCount == 1) {
+			// nothing to think about
+			bestMove = rootMoves[0];
+			return bestMove;
+		}
+		ordering.age();
+		if (orderMoves) {
+			long entry = table.probe(state.hash);
+			ordering.order(state, rootMoves, moveCount, 0, entry != 0 ? TranspositionTable.move(entry) : Moves.NONE);
+		}
+
+		for (int depth = startDepth; depth <= maxDepth; depth++) {
+			int iterationBest = -1;
+			int alpha = -INFINITY;
+			for (int i = 0; i < moveCount; i++) {
+				state.make(rootMoves[i]);
+				int score = -negamax(state, depth - 1, 1, -INFINITY, -alpha);
+				state.unmake();
+				if (stopped) {
+					break;
+				}
+				if (score > alpha) {
+					alpha = score;
+					iterationBest = i;
+				}
+			}
+			if (stopped || iterationBest < 0) {
+				break;
+			}
+			bestMove = rootMoves[iterationBest];
+			completedDepth = depth;
+			if (state.turn + depth < TURN_LIMIT) {
+				table.store(state.hash, bestMove, toTable(alpha, 0), depth, TranspositionTable.EXACT);
+			}
+			// search the best move first in the next iteration
+			System.arraycopy(rootMoves, 0, rootMoves, 1, iterationBest);
+			rootMoves[0] = bestMove;
+			if (Math.abs(alpha) >= Evaluator.WIN - MAX_DEPTH) {
+				// the result is certain, deeper iterations won't change it
+				break;
+			}
+			if (System.nanoTime() > softDeadline) {
+				// the next iteration would most likely not finish anyway
+				break;
+			}
+		}
+		GameLog.log(GameLog.Event.SEARCH_FINISHED, completedDepth, nodes);
+		return bestMove;
+	}
+
+	private int negamax(CompactState state, int depth, int ply, int alpha, int beta) {
+		if ((++nodes & 1023) == 0 && (aborted || System.nanoTime() > deadline)) {
+			stopped = true;
+			return 0;
+		}
+		int toMove = state.getCurrent();
+		int winner = state.getWinner();
+		if (winner != -1) {
+			return winner == toMove ? Evaluator.WIN - ply : -Evaluator.WIN + ply;
+		}
+		if (depth <= 0) {
+			return Evaluator.evaluate(state, toMove, weights);
+		}
+
+		// the hash does not contain the turn, so results are only shared as long as
+		// the round limit is out of reach
+		boolean useTable = state.turn + depth < TURN_LIMIT;
+		long entry = table.probe(state.hash);
+		int tableMove = Moves.NONE;
+		if (entry != 0) {
+			tableMove = TranspositionTable.move(entry);
+			if (useTable && TranspositionTable.depth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT || bound == TranspositionTable.LOWER && score >= beta
+						|| bound == TranspositionTable.UPPER && score <= alpha) {
+					return score;
+				}
+			}
+		}
+
+		int[] plyMoves = moves[ply];
+		int moveCount = MoveGenerator.generate(state, plyMoves, 0);
+		if (orderMoves) {
+			ordering.order(state, plyMoves, moveCount, ply, tableMove);
+		} else if (tableMove != Moves.NONE) {
+			// search the best move of the table first
+			for (int i = 1; i < moveCount; i++) {
+				if (plyMoves[i] == tableMove) {
+					plyMoves[i] = plyMoves[0];
+					plyMoves[0] = tableMove;
+					break;
+				}
+			}
+		}
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int best = Moves.NONE;
+		for (int i = 0; i < moveCount; i++) {
+			state.make(plyMoves[i]);
+			int score = -negamax(state, depth - 1, ply + 1, -beta, -alpha);
+			state.unmake();
+			if (stopped) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				best = plyMoves[i];
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						ordering.cutoff(best, toMove, ply, depth);
+						break;
+					}
+				}
+			}
+		}
+		if (useTable) {
+			int bound = bestScore >= beta ? TranspositionTable.LOWER
+					: bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+			table.store(state.hash, best, toTable(bestScore, ply), depth, bound);
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Wins are stored relative to the position instead of the root
+	 */
+	private static int toTable(int score, int ply) {
+		if (score >= WIN_BOUND) {
+			return score + ply;
+		} else if (score <= -WIN_BOUND) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		if (score >= WIN_BOUND) {
+			return score - ply;
+		} else if (score <= -WIN_BOUND) {
+			return score + ply;
+		}
+		return score;
+	}
+
+	/**
+	 * Stops a running search from another thread, the move of the last finished
+	 * iteration is returned.
+	 */
+	public void stop() {
+		aborted = true;
+	}
+
+	/**
+	 * Clears an earlier {@link #stop()}, has to be called before a search is
+	 * started with {@link #iterate(CompactState, long, long, int)}.
+	 */
+	void reset() {
+		aborted = false;
+	}
+
+	/**
+	 * @return best move of the last finished iteration
+	 */
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @param orderMoves
+	 *            whether the moves are ordered by the {@link MoveOrdering}, only
+	 *            the move of the table is searched first otherwise
+	 */
+	public void setOrderMoves(boolean orderMoves) {
+		this.orderMoves = orderMoves;
+	}
+}
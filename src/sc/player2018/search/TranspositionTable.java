@@ -0,0 +1,157 @@
+package sc.player2018.search;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size hash table for search results, backed by a single long array.
+ * Every entry takes two longs: the key xor the data and the data itself. A
+ * torn entry (key and data written by different threads) does not match its
+ * key anymore, so the table can be shared without locks.
+ *
+ * Entries are grouped in buckets of two, a new entry replaces the entry with
+ * the smallest depth of its bucket. Entries of older searches are replaced
+ * first.
+ *
+ * Layout of the data: move (bits 0-21), score + 2^21 (bits 22-43), depth (bits
+ * 44-51), bound (bits 52-53), generation (bits 54-61).
+ */
+public class TranspositionTable {
+	public static final int EXACT = 1;
+	public static final int LOWER = 2;
+	public static final int UPPER = 3;
+
+	private static final int BUCKET_ENTRIES = 2;
+	private static final int SCORE_OFFSET = 1 << 21;
+
+	private final long[] table;
+	private final int bucketMask;
+	private int generation;
+
+	private long probes;
+	private long hits;
+
+	/**
+	 * @param sizeMb
+	 *            memory used by the table, rounded down to a power of two
+	 */
+	public TranspositionTable(int sizeMb) {
+		long longs = Math.max(1, sizeMb) * (1L << 20) / 8;
+		int buckets = Integer.highestOneBit((int) Math.min(longs / (2 * BUCKET_ENTRIES), 1 << 28));
+		table = new long[buckets * 2 * BUCKET_ENTRIES];
+		bucketMask = buckets - 1;
+	}
+
+	/**
+	 * Starts a new search, entries of older searches are preferred for
+	 * replacement and the statistics are reset
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & 0xff;
+		probes = 0;
+		hits = 0;
+	}
+
+	public void clear() {
+		Arrays.fill(table, 0);
+		generation = 0;
+	}
+
+	/**
+	 * @return data of the entry with the given key, 0 if there is none
+	 */
+	public long probe(long key) {
+		probes++;
+		int index = bucket(key);
+		for (int i = 0; i < BUCKET_ENTRIES; i++, index += 2) {
+			long data = table[index + 1];
+			if ((table[index] ^ data) == key && data != 0) {
+				hits++;
+				return data;
+			}
+		}
+		return 0;
+	}
+
+	public void store(long key, int move, int score, int depth, int bound) {
+		int bucket = bucket(key);
+		int index = bucket;
+		int lowest = Integer.MAX_VALUE;
+		for (int i = 0; i < BUCKET_ENTRIES; i++) {
+			int entry = bucket + 2 * i;
+			long old = table[entry + 1];
+			if ((table[entry] ^ old) == key || old == 0) {
+				if (old != 0 && move == Moves.NONE) {
+					// keep the best move of an earlier search of this position
+					move = move(old);
+				}
+				index = entry;
+				break;
+			}
+			// entries of older searches count as if they had no depth
+			int value = generation(old) == generation ? depth(old) : -1;
+			if (value < lowest) {
+				lowest = value;
+				index = entry;
+			}
+		}
+		long data = (move & 0x3fffffL) | (long) (score + SCORE_OFFSET) << 22 | (long) depth << 44
+				| (long) bound << 52 | (long) generation << 54;
+		table[index] = key ^ data;
+		table[index + 1] = data;
+	}
+
+	private int bucket(long key) {
+		return ((int) (key ^ key >>> 32) & bucketMask) * 2 * BUCKET_ENTRIES;
+	}
+
+	public static int move(long data) {
+		return (int) (data & 0x3fffff);
+	}
+
+	public static int score(long data) {
+		return (int) (data >>> 22 & 0x3fffff) - SCORE_OFFSET;
+	}
+
+	public static int depth(long data) {
+		return (int) (data >>> 44 & 0xff);
+	}
+
+	public static int bound(long data) {
+		return (int) (data >>> 52 & 0x3);
+	}
+
+	private static int generation(long data) {
+		return (int) (data >>> 54 & 0xff);
+	}
+
+	/**
+	 * @return share of probes of the current search that found an entry
+	 */
+	public double getHitRate() {
+		return probes == 0 ? 0 : (double) hits / probes;
+	}
+
+	/**
+	 * @return estimated share of the table used by the current search, counted
+	 *         on the first thousand entries
+	 */
+	public double getFill() {
+		int sample = Math.min(1000, table.length / 2);
+		int used = 0;
+		for (int i = 0; i < sample; i++) {
+			long data = table[2 * i + 1];
+			if (data != 0 && generation(data) == generation) {
+				used++;
+			}
+		}
+		return (double) used / sample;
+	}
+
+	public long getProbes() {
+		return probes;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+}
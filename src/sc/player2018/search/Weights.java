@@ -0,0 +1,139 @@
+package sc.player2018.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * All numbers the client scores positions and moves with: the terms of the
+ * {@link Evaluator} and the ratings of the phase logic and the playouts.
+ * Weights are immutable, every player holds its own, so players with different
+ * weights can play against each other in one process.
+ *
+ * File format: one term per line, its name and value separated by blanks,
+ * lines starting with # are comments. Terms that are missing keep their
+ * default.
+ */
+public class Weights {
+	public enum Term {
+		// evaluation of a position
+		/** per field advanced */
+		FIELD(10, true),
+		/** per salad left */
+		SALAD(150, true),
+		/** carrots wanted on top of the ones needed for the fields to the goal */
+		CARROT_RESERVE(10, true),
+		/** carrots wanted per field to the goal */
+		CARROTS_PER_FIELD(3, true),
+		/** percentage of the carrots above the wanted ones that is lost */
+		EXCESS_CARROTS_PERCENT(50, true),
+		/** per card left */
+		CARD(15, true),
+
+		// ratings of the simple logic and the playouts
+		RATE_SALAD_ADVANCE(4, false),
+		/** carrots over the ones needed to the goal that are rated 0 */
+		RATE_CARROT_TARGET(10, false),
+		RATE_EAT_SALAD_CARD(3, false),
+		RATE_DROP_CARROTS(1, false),
+		RATE_FALL_BACK(3, false),
+		RATE_EAT_SALAD(4, false),
+
+		// ratings of the end game logic
+		END_CARROT_FIELD(10, false),
+		/** subtracted from the distance of an advance */
+		END_ADVANCE_OFFSET(2, false),
+		END_TAKE_CARROTS(2, false),
+		END_DROP_CARROTS(1, false),
+		END_FALL_BACK(-1, false),
+
+		/** carrots above which the early game goes to the first salad */
+		EARLY_CARROTS(125, false);
+
+		public final int initial;
+		/** whether the term is tuned by self-play, see WeightTuner */
+		public final boolean tuned;
+
+		Term(int initial, boolean tuned) {
+			this.initial = initial;
+			this.tuned = tuned;
+		}
+	}
+
+	private static final Term[] TERMS = Term.values();
+
+	public static final Weights DEFAULT = new Weights(Arrays.stream(TERMS).mapToInt(term -> term.initial).toArray());
+
+	private final int[] values;
+
+	private Weights(int[] values) {
+		this.values = values;
+	}
+
+	/**
+	 * @param values
+	 *            one value per term in the order of {@link Term}
+	 */
+	public static Weights of(int[] values) {
+		if (values.length != TERMS.length) {
+			throw new IllegalArgumentException("Expected " + TERMS.length + " weights, got " + values.length);
+		}
+		return new Weights(values.clone());
+	}
+
+	public int get(Term term) {
+		return values[term.ordinal()];
+	}
+
+	/**
+	 * @return the values in the order of {@link Term}
+	 */
+	public int[] toArray() {
+		return values.clone();
+	}
+
+	public static Weights read(Path file) throws IOException {
+		int[] values = DEFAULT.toArray();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] parts = line.split("\\s+");
+				try {
+					values[Term.valueOf(parts[0]).ordinal()] = Integer.parseInt(parts[1]);
+				} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+					throw new IOException("Not a weight: " + line);
+				}
+			}
+		}
+		return new Weights(values);
+	}
+
+	public void write(Path file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (Term term : TERMS) {
+			lines.add(term + " " + values[term.ordinal()]);
+		}
+		Files.write(file, lines, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Term term : TERMS) {
+			if (builder.length() > 0) {
+				builder.append(' ');
+			}
+			builder.append(term).append('=').append(values[term.ordinal()]);
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,65 @@
+package sc.player2018.search;
+
+import java.util.Random;
+
+/**
+ * Random keys for hashing a {@link CompactState}. The hash of a position is the
+ * xor of the keys of both player records and the side to move, so it can be
+ * updated incrementally when a move changes a player.
+ *
+ * Only the kind of the last action is hashed, its value does not change which
+ * moves are possible.
+ */
+public class Zobrist {
+	static final int CARROT_KEYS = 1024;
+
+	private static final long[][] FIELD = new long[2][CompactState.GOAL_INDEX + 1];
+	private static final long[][] CARROTS = new long[2][CARROT_KEYS];
+	private static final long[][] SALADS = new long[2][8];
+	private static final long[][] CARDS = new long[2][16];
+	private static final long[][] LAST_ACTION = new long[2][16];
+	static final long BLUE_TO_MOVE;
+
+	static {
+		// fixed seed, so hashes are the same in every run (the opening book depends
+		// on it)
+		Random rand = new Random(0x5eed2018L);
+		for (int p = CompactState.RED; p <= CompactState.BLUE; p++) {
+			fill(FIELD[p], rand);
+			fill(CARROTS[p], rand);
+			fill(SALADS[p], rand);
+			fill(CARDS[p], rand);
+			fill(LAST_ACTION[p], rand);
+		}
+		BLUE_TO_MOVE = rand.nextLong();
+	}
+
+	private static void fill(long[] keys, Random rand) {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = rand.nextLong();
+		}
+	}
+
+	/**
+	 * @return hash of one player record
+	 */
+	static long player(int p, int fieldIndex, int carrots, int salads, int cards, int lastAction) {
+		return FIELD[p][fieldIndex] ^ CARROTS[p][carrots & (CARROT_KEYS - 1)] ^ SALADS[p][salads & 7]
+				^ CARDS[p][cards] ^ LAST_ACTION[p][lastAction & 0xf];
+	}
+
+	/**
+	 * @return hash of the whole position, computed from scratch
+	 */
+	public static long hash(CompactState state) {
+		long hash = 0;
+		for (int p = CompactState.RED; p <= CompactState.BLUE; p++) {
+			hash ^= player(p, state.fieldIndex[p], state.carrots[p], state.salads[p], state.cards[p],
+					state.lastAction[p]);
+		}
+		if (state.current == CompactState.BLUE) {
+			hash ^= BLUE_TO_MOVE;
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,307 @@
+package sc.player2018.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.Settings;
+import sc.player2018.logic.Logic;
+import sc.player2018.search.CompactState;
+import sc.plugin2018.GameState;
+import sc.plugin2018.IGameHandler;
+import sc.plugin2018.Move;
+import sc.plugin2018.Player;
+import sc.shared.GameResult;
+import sc.shared.PlayerColor;
+
+/**
+ * Plays games between two {@link IGameHandler}s in this process, without the
+ * server. The handlers are driven like the client does it: both get every new
+ * state, the player to move gets the move request, and its move is performed
+ * on the game state with {@link Move#perform(GameState)}. Games run in parallel
+ * in a fork-join pool, the players swap colors every game.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.Arena [games] [player a] [player b] [parallel games]
+ * </pre>
+ *
+ * Players are given as {@code logic[:move time in ms]},
+ * {@code mcts[:move time in ms]} or {@code random}.
+ */
+public class Arena {
+	/** Creates a new player for every game, moves are sent to the given sink */
+	public interface PlayerFactory {
+		IGameHandler create(Consumer<Move> sender);
+	}
+
+	private static final int RED = CompactState.RED;
+	private static final int BLUE = CompactState.BLUE;
+	private static final long TURN_LIMIT = 2000 * 1000000L;
+
+	private final PlayerFactory[] factories;
+	// positions the games start from, the initial one if empty
+	private List<CompactState> openings = new ArrayList<>();
+
+	public Arena(PlayerFactory a, PlayerFactory b) {
+		this.factories = new PlayerFactory[] { a, b };
+	}
+
+	/**
+	 * Lets the games start from the given positions instead of the initial one.
+	 * Each position is played twice in a row, both players get each side once.
+	 */
+	public Arena setOpenings(List<CompactState> openings) {
+		this.openings = openings;
+		return this;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Logger rootLogger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		((ch.qos.logback.classic.Logger) rootLogger).setLevel(ch.qos.logback.classic.Level.ERROR);
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		String a = args.length > 1 ? args[1] : "logic:500";
+		String b = args.length > 2 ? args[2] : "random";
+		int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		Summary summary = new Arena(player(a), player(b)).run(games, parallelism);
+		System.out.println(summary.format(a, b));
+	}
+
+	/**
+	 * @param spec
+	 *            {@code logic[:move time in ms]}, {@code mcts[:move time in ms]}
+	 *            or {@code random}
+	 */
+	public static PlayerFactory player(String spec) {
+		if (spec.equals("random")) {
+			return RandomPlayer::new;
+		}
+		Settings settings = settings(spec);
+		return sender -> new Logic(sender, settings);
+	}
+
+	/**
+	 * @param spec
+	 *            {@code logic[:move time in ms]} or {@code mcts[:move time in ms]}
+	 * @return settings of a client playing in the arena
+	 */
+	public static Settings settings(String spec) {
+		String[] parts = spec.split(":");
+		if (!parts[0].equals("logic") && !parts[0].equals("mcts")) {
+			throw new IllegalArgumentException("Unknown player " + spec);
+		}
+		Settings settings = new Settings();
+		settings.engine = parts[0].equals("mcts") ? Settings.Engine.MCTS : Settings.Engine.ALPHA_BETA;
+		// several games share the cores, every player searches on one thread
+		settings.threads = 1;
+		settings.ponder = false;
+		settings.tableSize = 16;
+		settings.layoutCache = null;
+		settings.statsDir = null;
+		if (parts.length > 1) {
+			settings.moveTime = Integer.parseInt(parts[1]);
+		}
+		return settings;
+	}
+
+	public Summary run(int games, int parallelism) throws InterruptedException {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<Record>> tasks = new ArrayList<>();
+			for (int i = 0; i < games; i++) {
+				boolean aIsRed = i % 2 == 0;
+				CompactState opening = openings.isEmpty() ? null : openings.get(i / 2 % openings.size());
+				tasks.add(pool.submit(() -> play(aIsRed, opening == null ? new GameState() : opening.toGameState())));
+			}
+			Summary summary = new Summary();
+			for (ForkJoinTask<Record> task : tasks) {
+				try {
+					summary.add(task.get());
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Game failed", e.getCause());
+				}
+			}
+			return summary;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays one game.
+	 *
+	 * @param aIsRed
+	 *            whether the first player plays red
+	 */
+	public Record play(boolean aIsRed) {
+		return play(aIsRed, new GameState());
+	}
+
+	/**
+	 * Plays one game from the given position.
+	 *
+	 * @param aIsRed
+	 *            whether the first player plays red
+	 */
+	public Record play(boolean aIsRed, GameState gameState) {
+		Record record = new Record();
+		// players by color
+		int[] side = aIsRed ? new int[] { 0, 1 } : new int[] { 1, 0 };
+		Move[] sent = new Move[2];
+		IGameHandler[] handlers = new IGameHandler[2];
+		for (int color = RED; color <= BLUE; color++) {
+			int c = color;
+			handlers[color] = factories[side[color]].create(move -> sent[c] = move);
+		}
+
+		int winner;
+		while ((winner = CompactState.fromGameState(gameState).getWinner()) == -1) {
+			for (int color = RED; color <= BLUE; color++) {
+				Player own = gameState.getPlayer(color == RED ? PlayerColor.RED : PlayerColor.BLUE);
+				Player other = gameState.getPlayer(color == RED ? PlayerColor.BLUE : PlayerColor.RED);
+				handlers[color].onUpdate(gameState);
+				handlers[color].onUpdate(own, other);
+			}
+			int color = gameState.getCurrentPlayerColor() == PlayerColor.RED ? RED : BLUE;
+			sent[color] = null;
+			long start = System.nanoTime();
+			try {
+				handlers[color].onRequestAction();
+			} catch (RuntimeException e) {
+				record.errors[side[color]]++;
+			}
+			long time = System.nanoTime() - start;
+			record.addTurn(side[color], time);
+			try {
+				if (sent[color] == null) {
+					throw new IllegalStateException("No move sent");
+				}
+				sent[color].perform(gameState);
+			} catch (Exception e) {
+				// like on the server, a missing or invalid move loses the game
+				record.errors[side[color]]++;
+				winner = 1 - color;
+				break;
+			}
+		}
+		for (int color = RED; color <= BLUE; color++) {
+			handlers[color].gameEnded(null, color == RED ? PlayerColor.RED : PlayerColor.BLUE, null);
+		}
+		record.winner = side[winner];
+		record.rounds = gameState.getRound();
+		return record;
+	}
+
+	/**
+	 * Result of one game, players are 0 (a) and 1 (b)
+	 */
+	public static class Record {
+		public int winner;
+		public int rounds;
+		public final int[] turns = new int[2];
+		public final long[] time = new long[2];
+		public final long[] maxTime = new long[2];
+		public final int[] overLimit = new int[2];
+		public final int[] errors = new int[2];
+
+		void addTurn(int player, long nanos) {
+			turns[player]++;
+			time[player] += nanos;
+			maxTime[player] = Math.max(maxTime[player], nanos);
+			if (nanos > TURN_LIMIT) {
+				overLimit[player]++;
+			}
+		}
+	}
+
+	public static class Summary {
+		public int games;
+		public final int[] wins = new int[2];
+		public long rounds;
+		public final long[] turns = new long[2];
+		public final long[] time = new long[2];
+		public final long[] maxTime = new long[2];
+		public final int[] overLimit = new int[2];
+		public final int[] errors = new int[2];
+
+		void add(Record record) {
+			games++;
+			wins[record.winner]++;
+			rounds += record.rounds;
+			for (int p = 0; p < 2; p++) {
+				turns[p] += record.turns[p];
+				time[p] += record.time[p];
+				maxTime[p] = Math.max(maxTime[p], record.maxTime[p]);
+				overLimit[p] += record.overLimit[p];
+				errors[p] += record.errors[p];
+			}
+		}
+
+		/**
+		 * @return share of the games won by player a
+		 */
+		public double winRate() {
+			return games == 0 ? 0 : (double) wins[0] / games;
+		}
+
+		public String format(String a, String b) {
+			double rate = winRate();
+			// normal approximation of the 95% confidence interval
+			double interval = games == 0 ? 0 : 1.96 * Math.sqrt(rate * (1 - rate) / games);
+			StringBuilder builder = new StringBuilder();
+			builder.append(String.format("%d games, %s won %d (%.1f%% +- %.1f%%), %s won %d%n", games, a, wins[0],
+					rate * 100, interval * 100, b, wins[1]));
+			builder.append(String.format("rounds to finish: %.1f%n", games == 0 ? 0 : (double) rounds / games));
+			String[] names = { a, b };
+			for (int p = 0; p < 2; p++) {
+				builder.append(String.format("%s: %.1f ms per turn, max %.1f ms, %d turns over the limit, %d errors%n",
+						names[p], turns[p] == 0 ? 0 : time[p] / 1e6 / turns[p], maxTime[p] / 1e6, overLimit[p],
+						errors[p]));
+			}
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * Plays a random legal move, as a baseline
+	 */
+	static class RandomPlayer implements IGameHandler {
+		private final Consumer<Move> sender;
+		private final Random rand = new Random();
+		private GameState gameState;
+
+		RandomPlayer(Consumer<Move> sender) {
+			this.sender = sender;
+		}
+
+		@Override
+		public void onUpdate(Player player, Player otherPlayer) {
+		}
+
+		@Override
+		public void onUpdate(GameState gameState) {
+			this.gameState = gameState;
+		}
+
+		@Override
+		public void onRequestAction() {
+			List<Move> moves = gameState.getPossibleMoves();
+			sendAction(moves.get(rand.nextInt(moves.size())));
+		}
+
+		@Override
+		public void sendAction(Move move) {
+			sender.accept(move);
+		}
+
+		@Override
+		public void gameEnded(GameResult data, PlayerColor color, String errorMessage) {
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package sc.player2018.tools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.EndgameTables;
+import sc.plugin2018.Board;
+
+/**
+ * Solves the endgame tables of random board layouts and writes them to a file
+ * the client maps at startup. Layouts with the same last fields share one
+ * table.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.EndgameTableGenerator [layouts] [file]
+ * </pre>
+ */
+public class EndgameTableGenerator {
+	public static void main(String[] args) throws IOException {
+		int layouts = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		String file = args.length > 1 ? args[1] : "endgame.tb";
+		BoardIndex[] boards = new BoardIndex[layouts];
+		for (int i = 0; i < layouts; i++) {
+			// every new board is shuffled like the server does it
+			boards[i] = BoardIndex.of(new Board());
+		}
+		long start = System.nanoTime();
+		EndgameTables.write(Paths.get(file), boards);
+		System.out.printf("%d layouts written to %s in %.1f s%n", layouts, file, (System.nanoTime() - start) / 1e9);
+	}
+}
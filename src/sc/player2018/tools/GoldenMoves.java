@@ -0,0 +1,254 @@
+package sc.player2018.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.Settings;
+import sc.player2018.logic.LatencyHistogram;
+import sc.player2018.logic.Logic;
+import sc.player2018.logic.WarmUp;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.Moves;
+import sc.plugin2018.GameState;
+import sc.plugin2018.Move;
+import sc.plugin2018.Player;
+
+/**
+ * Regression suite for the decisions of the {@link Logic}: replays recorded
+ * positions through the logic the way the client drives it, without the
+ * server, and compares the moves with a golden file. Every position is decided
+ * twice, by the search to a fixed depth and by the phase logic alone
+ * ({@link Settings.Engine#PHASE_LOGIC}), each time by a new logic, so a move
+ * does not depend on the positions before it. The positions are spread over a
+ * pool of threads.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.GoldenMoves record [positions] [golden file] [depth]
+ * java -cp ... sc.player2018.tools.GoldenMoves check [positions] [golden file] [percentile] [budget ms] [threads]
+ * </pre>
+ *
+ * The check also times every decision, from the game state to the sent move.
+ * If the given percentile of the times of an engine is over the budget, all
+ * positions over the budget fail; single outliers below the percentile do not.
+ * It exits with 1 if a move changed or the time is over the budget. The depth
+ * of the search is kept in the golden file. If the logic chose an empty move,
+ * the client sends a random one; the golden file keeps such positions as
+ * emergency instead of the random move.
+ */
+public class GoldenMoves {
+	private static final int SEARCH = 0;
+	private static final int PHASE = 1;
+	private static final String[] ENGINES = { "search", "phase" };
+	private static final int TABLE_SIZE = 4;
+	private static final int MAX_REPORTED = 20;
+	private static final long MS = 1000000L;
+	private static final int WARM_UP_TIME = 1000;
+	// the logic chose an empty move and sent a random one instead
+	private static final int EMERGENCY = -1;
+
+	/** moves and times of one position, by engine */
+	private static class Decision {
+		final int[] moves = new int[2];
+		final long[] times = new long[2];
+	}
+
+	public static void main(String[] args) throws Exception {
+		// logback.xml of the client sets the level of sc, not only of the root
+		Logger logger = LoggerFactory.getLogger("sc");
+		((ch.qos.logback.classic.Logger) logger).setLevel(ch.qos.logback.classic.Level.ERROR);
+		if (args.length < 1 || !args[0].equals("record") && !args[0].equals("check")) {
+			System.err.println("Usage: GoldenMoves record|check [positions] [golden file] ...");
+			System.exit(2);
+		}
+		boolean record = args[0].equals("record");
+		String positions = args.length > 1 ? args[1] : "bench/positions.txt";
+		Path golden = Paths.get(args.length > 2 ? args[2] : "bench/golden.txt");
+		List<Positions.Entry> entries = PositionFile.read(Paths.get(positions));
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		if (record) {
+			int depth = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+			List<Decision> decisions = decide(entries, depth, threads);
+			write(golden, positions, depth, entries, decisions);
+			System.out.println("Recorded " + entries.size() + " positions at depth " + depth + " to " + golden);
+			return;
+		}
+
+		double percentile = args.length > 3 ? Double.parseDouble(args[3]) : 95;
+		long budget = (args.length > 4 ? Long.parseLong(args[4]) : 200) * MS;
+		if (args.length > 5) {
+			threads = Integer.parseInt(args[5]);
+		}
+		List<String> lines = Files.readAllLines(golden, StandardCharsets.UTF_8);
+		int depth = readDepth(lines);
+		List<int[]> expected = readMoves(lines);
+		if (expected.size() != entries.size()) {
+			System.out.println("Golden file has " + expected.size() + " positions, " + positions + " has "
+					+ entries.size());
+			System.exit(1);
+		}
+
+		// like the client before joining, so the first positions are not timed
+		// with cold code
+		WarmUp.run(settings(Settings.Engine.ALPHA_BETA, depth), WARM_UP_TIME);
+		long start = System.nanoTime();
+		List<Decision> decisions = decide(entries, depth, threads);
+		long elapsed = System.nanoTime() - start;
+		int failures = 0;
+		for (int i = 0; i < entries.size(); i++) {
+			for (int engine = SEARCH; engine <= PHASE; engine++) {
+				int move = decisions.get(i).moves[engine];
+				int goldenMove = expected.get(i)[engine];
+				if (move != goldenMove && failures++ < MAX_REPORTED) {
+					System.out.printf("position %d (%s): %s moved %s instead of %s%n", i, entries.get(i).label,
+							ENGINES[engine], format(move), format(goldenMove));
+				}
+			}
+		}
+		int changed = failures;
+		for (int engine = SEARCH; engine <= PHASE; engine++) {
+			LatencyHistogram times = new LatencyHistogram();
+			for (Decision decision : decisions) {
+				times.record(decision.times[engine]);
+			}
+			System.out.printf("%-6s times in microseconds: %s%n", ENGINES[engine], times);
+			if (times.getPercentile(percentile) * 1000 <= budget) {
+				continue;
+			}
+			System.out.printf("%s: p%s over the budget of %d ms%n", ENGINES[engine], percentile, budget / MS);
+			for (int i = 0; i < entries.size(); i++) {
+				long time = decisions.get(i).times[engine];
+				if (time > budget && failures++ < MAX_REPORTED) {
+					System.out.printf("position %d (%s): %s took %d ms%n", i, entries.get(i).label, ENGINES[engine],
+							time / MS);
+				}
+			}
+		}
+		System.out.printf("%d positions at depth %d in %d ms on %d threads: %d moves changed, %d failures%n",
+				entries.size(), depth, elapsed / MS, threads, changed, failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	private static List<Decision> decide(List<Positions.Entry> entries, int depth, int threads)
+			throws InterruptedException {
+		Settings search = settings(Settings.Engine.ALPHA_BETA, depth);
+		Settings phase = settings(Settings.Engine.PHASE_LOGIC, depth);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<ForkJoinTask<Decision>> tasks = new ArrayList<>();
+			for (Positions.Entry entry : entries) {
+				tasks.add(pool.submit(() -> {
+					Decision decision = new Decision();
+					decide(entry.state, search, decision, SEARCH);
+					decide(entry.state, phase, decision, PHASE);
+					return decision;
+				}));
+			}
+			List<Decision> decisions = new ArrayList<>();
+			for (ForkJoinTask<Decision> task : tasks) {
+				try {
+					decisions.add(task.get());
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Decision failed", e.getCause());
+				}
+			}
+			return decisions;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static Settings settings(Settings.Engine engine, int depth) {
+		Settings settings = new Settings();
+		settings.engine = engine;
+		settings.searchDepth = depth;
+		// the positions share the cores, every logic searches on one thread
+		settings.threads = 1;
+		settings.ponder = false;
+		settings.tableSize = TABLE_SIZE;
+		settings.layoutCache = null;
+		settings.statsDir = null;
+		return settings;
+	}
+
+	/**
+	 * Lets a new logic decide on the position, like on a move request of the
+	 * server
+	 */
+	private static void decide(CompactState state, Settings settings, Decision decision, int engine) {
+		Move[] sent = new Move[1];
+		Logic logic = new Logic(move -> sent[0] = move, settings);
+		GameState gameState = state.toGameState();
+		Player own = gameState.getCurrentPlayer();
+		Player other = gameState.getOtherPlayer();
+		long start = System.nanoTime();
+		logic.onUpdate(gameState);
+		logic.onUpdate(own, other);
+		logic.onRequestAction();
+		decision.times[engine] = System.nanoTime() - start;
+		if (logic.getStats().getEmergencies() > 0) {
+			decision.moves[engine] = EMERGENCY;
+		} else {
+			decision.moves[engine] = sent[0] == null ? Moves.NONE : Moves.fromMove(sent[0]);
+		}
+	}
+
+	private static String format(int move) {
+		return move == EMERGENCY ? "emergency" : Moves.toString(move);
+	}
+
+	private static void write(Path golden, String positions, int depth, List<Positions.Entry> entries,
+			List<Decision> decisions) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add("# moves of " + positions + ", depth " + depth);
+		lines.add("# position label search phase");
+		for (int i = 0; i < entries.size(); i++) {
+			int[] moves = decisions.get(i).moves;
+			lines.add(i + " " + entries.get(i).label + " " + moves[SEARCH] + " " + moves[PHASE] + " # "
+					+ format(moves[SEARCH]) + " | " + format(moves[PHASE]));
+		}
+		if (golden.getParent() != null) {
+			Files.createDirectories(golden.getParent());
+		}
+		Files.write(golden, lines, StandardCharsets.UTF_8);
+	}
+
+	private static int readDepth(List<String> lines) {
+		for (String line : lines) {
+			int index = line.indexOf(", depth ");
+			if (line.startsWith("#") && index >= 0) {
+				return Integer.parseInt(line.substring(index + ", depth ".length()).trim());
+			}
+		}
+		throw new IllegalArgumentException("Golden file has no depth");
+	}
+
+	/**
+	 * @return moves of the search and the phase logic of every position
+	 */
+	private static List<int[]> readMoves(List<String> lines) {
+		List<int[]> moves = new ArrayList<>();
+		for (String line : lines) {
+			if (line.startsWith("#") || line.trim().isEmpty()) {
+				continue;
+			}
+			String[] parts = line.trim().split("\\s+");
+			if (Integer.parseInt(parts[0]) != moves.size()) {
+				throw new IllegalArgumentException("Positions of the golden file out of order: " + line);
+			}
+			moves.add(new int[] { Integer.parseInt(parts[2]), Integer.parseInt(parts[3]) });
+		}
+		return moves;
+	}
+}
@@ -0,0 +1,454 @@
+package sc.player2018.tools;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+
+import sc.framework.plugins.SimplePlayer;
+import sc.framework.plugins.protocol.MoveRequest;
+import sc.player2018.Starter;
+import sc.player2018.logic.LatencyHistogram;
+import sc.player2018.search.CompactState;
+import sc.plugin2018.GameState;
+import sc.plugin2018.Move;
+import sc.plugin2018.util.Configuration;
+import sc.protocol.LobbyProtocol;
+import sc.protocol.requests.JoinPreparedRoomRequest;
+import sc.protocol.requests.JoinRoomRequest;
+import sc.protocol.responses.JoinGameProtocolMessage;
+import sc.protocol.responses.LeftGameEvent;
+import sc.protocol.responses.MementoPacket;
+import sc.protocol.responses.ProtocolMessage;
+import sc.protocol.responses.RoomPacket;
+import sc.shared.GameResult;
+import sc.shared.PlayerColor;
+import sc.shared.PlayerScore;
+import sc.shared.ScoreCause;
+import sc.shared.ScoreDefinition;
+import sc.shared.WelcomeMessage;
+
+/**
+ * Stand-in for the game server on this machine, speaking enough of the
+ * protocol to host two {@link Starter} clients over TCP: joining with or
+ * without a reservation (every reservation is accepted), the color, the state
+ * updates, the move requests, the result and leaving the room. Games are
+ * played one after the other, each with two new connections.
+ *
+ * Every message is delayed by the given time in each direction, like the
+ * network between the client and the real server: messages to a client are
+ * written after the delay by a thread of the connection, messages of a client
+ * are handed to the game after the delay. The round trip of every turn, from
+ * sending the move request to the arrival of the move, is written to a file
+ * (game, turn, color, microseconds) and summed up at the end. Next to the
+ * statistics the clients write themselves, it shows how much of the time
+ * limit of the server goes to the network and the protocol.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.LocalServer [games] [delay ms] [spawn|wait] [port] [client options...]
+ * </pre>
+ *
+ * With {@code spawn} the server starts both clients of every game itself, as
+ * new JVMs with the options of this one, and passes the client options on to
+ * them; their output goes to the stats directory. With {@code wait} it waits
+ * for clients started by hand.
+ */
+public class LocalServer implements Closeable {
+	private static final Logger log = LoggerFactory.getLogger(LocalServer.class);
+	private static final int RED = CompactState.RED;
+	private static final int BLUE = CompactState.BLUE;
+	// like the server: over the soft limit counts, over the hard limit loses
+	private static final long TURN_LIMIT = 2000 * 1000000L;
+	private static final long MOVE_TIMEOUT = 10000 * 1000000L;
+	// the clients start their JVM and warm up before joining
+	private static final long JOIN_TIMEOUT = 60000 * 1000000L;
+	private static final String STATS_DIR = "stats";
+
+	private final XStream xStream = createXStream();
+	private final ServerSocket serverSocket;
+	private final long delay;
+	private final PrintWriter roundTripFile;
+	private final LatencyHistogram[] roundTrips = { new LatencyHistogram(), new LatencyHistogram() };
+	private final int[] wins = new int[2];
+	private int overLimit;
+	private int errors;
+
+	/**
+	 * @param port
+	 *            0 for any free port
+	 * @param delay
+	 *            delay of every message in each direction in milliseconds
+	 * @param roundTripFile
+	 *            file the round trip of every turn is written to
+	 */
+	public LocalServer(int port, int delay, Path roundTripFile) throws IOException {
+		this.serverSocket = new ServerSocket(port);
+		this.delay = delay * 1000000L;
+		if (roundTripFile.getParent() != null) {
+			Files.createDirectories(roundTripFile.getParent());
+		}
+		this.roundTripFile = new PrintWriter(Files.newBufferedWriter(roundTripFile, StandardCharsets.UTF_8));
+		this.roundTripFile.println("# game turn color microseconds");
+	}
+
+	public static void main(String[] args) throws Exception {
+		Logger rootLogger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		((ch.qos.logback.classic.Logger) rootLogger).setLevel(ch.qos.logback.classic.Level.WARN);
+		((ch.qos.logback.classic.Logger) log).setLevel(ch.qos.logback.classic.Level.INFO);
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+		int delay = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+		boolean spawn = args.length <= 2 || args[2].equals("spawn");
+		int port = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+		List<String> clientOptions = args.length > 4 ? Arrays.asList(args).subList(4, args.length)
+				: Collections.<String> emptyList();
+
+		String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		Path file = Paths.get(STATS_DIR, "server-" + stamp + ".txt");
+		try (LocalServer server = new LocalServer(port, delay, file)) {
+			for (int game = 1; game <= games; game++) {
+				List<Process> clients = new ArrayList<>();
+				if (spawn) {
+					for (int i = 1; i <= 2; i++) {
+						File output = Paths.get(STATS_DIR, "server-" + stamp + "-game" + game + "-client" + i + ".log")
+								.toFile();
+						clients.add(startClient(server.getPort(), clientOptions, output));
+					}
+				} else {
+					log.info("Waiting for two clients on port {}", server.getPort());
+				}
+				try {
+					server.play(game);
+				} finally {
+					for (Process client : clients) {
+						if (!client.waitFor(10, TimeUnit.SECONDS)) {
+							log.warn("Client did not end after the game");
+							client.destroy();
+						}
+					}
+				}
+			}
+			System.out.println(server.summary(games));
+			System.out.println("round trips written to " + file);
+		}
+	}
+
+	/**
+	 * @return XStream configured like the one of the SDK
+	 */
+	public static XStream createXStream() {
+		XStream xStream = new XStream();
+		xStream.setMode(XStream.NO_REFERENCES);
+		xStream.setClassLoader(Configuration.class.getClassLoader());
+		LobbyProtocol.registerMessages(xStream);
+		LobbyProtocol.registerAdditionalMessages(xStream, Configuration.getClassesToRegister());
+		return xStream;
+	}
+
+	/**
+	 * Starts a client with the class path and JVM options of this process
+	 */
+	private static Process startClient(int port, List<String> options, File output) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		// e.g. the opened modules XStream needs on newer JVMs
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Starter.class.getName());
+		command.add("--port");
+		command.add(Integer.toString(port));
+		command.addAll(options);
+		output.getParentFile().mkdirs();
+		return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output).start();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Waits for two clients and plays one game between them, the first one to
+	 * join plays red
+	 */
+	public void play(int game) throws IOException, InterruptedException {
+		String roomId = "local-" + game;
+		Connection[] connections = new Connection[2];
+		try {
+			for (int color = RED; color <= BLUE; color++) {
+				connections[color] = new Connection(serverSocket.accept());
+				if (!connections[color].join()) {
+					throw new IOException("Client did not join");
+				}
+				connections[color].send(new JoinGameProtocolMessage(roomId));
+			}
+			for (int color = RED; color <= BLUE; color++) {
+				connections[color].send(new RoomPacket(roomId, new WelcomeMessage(playerColor(color))));
+			}
+			playGame(game, roomId, connections);
+		} finally {
+			for (Connection connection : connections) {
+				if (connection != null) {
+					connection.close();
+				}
+			}
+		}
+	}
+
+	private void playGame(int game, String roomId, Connection[] connections) throws InterruptedException {
+		GameState gameState = new GameState();
+		int winner;
+		ScoreCause cause = ScoreCause.REGULAR;
+		while (true) {
+			sendState(roomId, connections, gameState);
+			if ((winner = CompactState.fromGameState(gameState).getWinner()) != -1) {
+				break;
+			}
+			int color = gameState.getCurrentPlayerColor() == PlayerColor.RED ? RED : BLUE;
+			long start = System.nanoTime();
+			connections[color].send(new RoomPacket(roomId, new MoveRequest()));
+			Received move = connections[color].receiveMove(start + MOVE_TIMEOUT);
+			if (move == null) {
+				log.warn("Game {}: no move of {} in time", game, playerColor(color));
+				errors++;
+				winner = 1 - color;
+				cause = ScoreCause.HARD_TIMEOUT;
+				break;
+			}
+			long roundTrip = move.arrival - start;
+			roundTrips[color].record(roundTrip);
+			roundTripFile.printf("%d %d %s %d%n", game, gameState.getTurn(), playerColor(color), roundTrip / 1000);
+			if (roundTrip > TURN_LIMIT) {
+				log.warn("Game {}: turn took {} ms", game, roundTrip / 1000000);
+				overLimit++;
+			}
+			try {
+				((Move) move.message).perform(gameState);
+			} catch (Exception e) {
+				log.warn("Game {}: invalid move of {}", game, playerColor(color) + ": " + e.getMessage());
+				errors++;
+				winner = 1 - color;
+				cause = ScoreCause.RULE_VIOLATION;
+				break;
+			}
+		}
+		wins[winner]++;
+		log.info("Game {} won by {}", game, playerColor(winner) + " in round " + gameState.getRound());
+		GameResult result = result(gameState, winner, cause);
+		for (Connection connection : connections) {
+			connection.send(new RoomPacket(roomId, result));
+			connection.send(new LeftGameEvent(roomId));
+		}
+		roundTripFile.flush();
+	}
+
+	private void sendState(String roomId, Connection[] connections, GameState gameState) {
+		for (Connection connection : connections) {
+			// the game goes on while the delayed message waits to be written
+			GameState copy;
+			try {
+				copy = gameState.clone();
+			} catch (CloneNotSupportedException e) {
+				throw new IllegalStateException(e);
+			}
+			connection.send(new RoomPacket(roomId, new MementoPacket(copy, null)));
+		}
+	}
+
+	private static GameResult result(GameState gameState, int winner, ScoreCause cause) {
+		ScoreDefinition definition = new ScoreDefinition();
+		definition.add("Gewinner");
+		List<PlayerScore> scores = new ArrayList<>();
+		for (int color = RED; color <= BLUE; color++) {
+			// only the loser caused a timeout or violation
+			ScoreCause playerCause = color == winner ? ScoreCause.REGULAR : cause;
+			scores.add(new PlayerScore(playerCause, "", color == winner ? 2 : 0));
+		}
+		List<SimplePlayer> winners = Collections.<SimplePlayer> singletonList(gameState.getPlayer(playerColor(winner)));
+		return new GameResult(definition, scores, winners);
+	}
+
+	private static PlayerColor playerColor(int color) {
+		return color == RED ? PlayerColor.RED : PlayerColor.BLUE;
+	}
+
+	public String summary(int games) {
+		LatencyHistogram all = new LatencyHistogram();
+		all.add(roundTrips[RED]);
+		all.add(roundTrips[BLUE]);
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%d games, red won %d, blue won %d, %d errors, delay %d ms%n", games,
+				wins[RED], wins[BLUE], errors, delay / 1000000));
+		builder.append(String.format("round trips in microseconds, %d over the limit%n", overLimit));
+		builder.append("ALL  ").append(all).append(System.lineSeparator());
+		builder.append("RED  ").append(roundTrips[RED]).append(System.lineSeparator());
+		builder.append("BLUE ").append(roundTrips[BLUE]);
+		return builder.toString();
+	}
+
+	@Override
+	public void close() throws IOException {
+		roundTripFile.close();
+		serverSocket.close();
+	}
+
+	/** message of a client and when it arrives after the delay */
+	private static class Received {
+		final Object message;
+		final long arrival;
+
+		Received(Object message, long arrival) {
+			this.message = message;
+			this.arrival = arrival;
+		}
+	}
+
+	/**
+	 * Connection to one client: a thread reads its messages into a queue, a
+	 * thread writes the messages to it after the delay
+	 */
+	private class Connection implements Closeable {
+		private final Socket socket;
+		private final ObjectOutputStream out;
+		private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "local-server-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		private final BlockingQueue<Received> inbox = new LinkedBlockingQueue<>();
+		private final CountDownLatch ended = new CountDownLatch(1);
+		private volatile boolean closed;
+
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			socket.setTcpNoDelay(true);
+			// the client waits for the root element before it reads anything
+			out = xStream.createObjectOutputStream(socket.getOutputStream(), "protocol");
+			out.flush();
+			Thread reader = new Thread(this::read, "local-server-reader");
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		private void read() {
+			try {
+				ObjectInputStream in = xStream.createObjectInputStream(socket.getInputStream());
+				while (true) {
+					Object message = in.readObject();
+					inbox.add(new Received(message, System.nanoTime() + delay));
+				}
+			} catch (IOException | ClassNotFoundException | XStreamException e) {
+				if (!closed) {
+					log.debug("Connection ended: {}", e.toString());
+				}
+			}
+			// the end of the stream
+			inbox.add(new Received(null, System.nanoTime()));
+			ended.countDown();
+		}
+
+		/**
+		 * @return whether the client asked to join a game
+		 */
+		boolean join() throws InterruptedException {
+			Received received;
+			while ((received = receive(System.nanoTime() + JOIN_TIMEOUT)) != null) {
+				if (received.message instanceof JoinRoomRequest
+						|| received.message instanceof JoinPreparedRoomRequest) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * @return the next move of the client, null if none arrived before the
+		 *         deadline or the connection ended
+		 */
+		Received receiveMove(long deadline) throws InterruptedException {
+			Received received;
+			while ((received = receive(deadline)) != null) {
+				if (received.message instanceof RoomPacket
+						&& ((RoomPacket) received.message).getData() instanceof Move) {
+					return new Received(((RoomPacket) received.message).getData(), received.arrival);
+				}
+			}
+			return null;
+		}
+
+		private Received receive(long deadline) throws InterruptedException {
+			Received received = inbox.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (received == null || received.message == null || received.arrival > deadline) {
+				return null;
+			}
+			long wait = received.arrival - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+			return received;
+		}
+
+		void send(ProtocolMessage message) {
+			writer.schedule(() -> {
+				try {
+					out.writeObject(message);
+					out.flush();
+				} catch (IOException | XStreamException e) {
+					if (!closed) {
+						log.warn("Could not send {}: {}", message.getClass().getSimpleName(), e.toString());
+					}
+				}
+			}, delay, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public void close() throws IOException {
+			// the messages still waiting are written first
+			writer.shutdown();
+			try {
+				writer.awaitTermination(delay + 5000 * 1000000L, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			try {
+				// the client closes its side after leaving the room
+				ended.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			closed = true;
+			try {
+				out.close();
+			} catch (IOException e) {
+				// the client may have closed first
+			}
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package sc.player2018.tools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.MoveGenerator;
+import sc.player2018.search.Moves;
+import sc.player2018.search.OpeningBook;
+import sc.player2018.search.Search;
+import sc.plugin2018.Board;
+import sc.plugin2018.GameState;
+
+/**
+ * Builds the {@link OpeningBook}: every order of the first shuffled fields is
+ * played from the start for the given number of plies, every position on the
+ * way is searched for the given time. The rest of the board is taken from one
+ * random board, the first moves can not reach it.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.OpeningBookGenerator [plies] [ms per position] [file]
+ * </pre>
+ */
+public class OpeningBookGenerator {
+	// fields 1 to 9 are shuffled by the server, see Board#initialize
+	private static final int FIRST = 1;
+	private static final int LAST = 9;
+
+	private final Search search = new Search(Search.DEFAULT_TABLE_SIZE);
+	private final long moveTime;
+	private final int plies;
+	private final Set<Long> seen = new HashSet<>();
+	private long[] keys = new long[1024];
+	private int[] moves = new int[1024];
+	private int count;
+
+	public OpeningBookGenerator(int plies, long moveTime) {
+		this.plies = plies;
+		this.moveTime = moveTime;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Logger rootLogger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		((ch.qos.logback.classic.Logger) rootLogger).setLevel(ch.qos.logback.classic.Level.WARN);
+		int plies = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+		long moveTime = (args.length > 1 ? Long.parseLong(args[1]) : 1000) * 1000000L;
+		String file = args.length > 2 ? args[2] : "opening.book";
+
+		byte[] board = CompactState.readBoard(new Board());
+		List<byte[]> layouts = new ArrayList<>();
+		byte[] segment = Arrays.copyOfRange(board, FIRST, LAST + 1);
+		Arrays.sort(segment);
+		permute(segment, 0, layouts);
+
+		OpeningBookGenerator generator = new OpeningBookGenerator(plies, moveTime);
+		long start = System.nanoTime();
+		for (int i = 0; i < layouts.size(); i++) {
+			byte[] layout = board.clone();
+			System.arraycopy(layouts.get(i), 0, layout, FIRST, layouts.get(i).length);
+			generator.add(CompactState.fromGameState(new GameState(), new BoardIndex(layout)), 0);
+			if ((i + 1) % 100 == 0) {
+				System.out.printf("%d of %d layouts, %d positions, %.0f s%n", i + 1, layouts.size(), generator.count,
+						(System.nanoTime() - start) / 1e9);
+			}
+		}
+		OpeningBook.write(Paths.get(file), generator.keys, generator.moves, generator.count);
+		System.out.printf("%d positions written to %s%n", generator.count, file);
+	}
+
+	/**
+	 * Collects all distinct orders of the sorted values from the index on
+	 */
+	private static void permute(byte[] values, int index, List<byte[]> out) {
+		if (index == values.length) {
+			out.add(values.clone());
+			return;
+		}
+		for (int i = index; i < values.length; i++) {
+			if (i > index && values[i] == values[i - 1]) {
+				continue;
+			}
+			byte[] next = values.clone();
+			// rotate the chosen value to the front, the rest stays sorted
+			byte value = next[i];
+			System.arraycopy(next, index, next, index + 1, i - index);
+			next[index] = value;
+			permute(next, index + 1, out);
+		}
+	}
+
+	private void add(CompactState state, int ply) {
+		long key = OpeningBook.key(state);
+		if (!seen.add(key) || state.getWinner() != -1) {
+			return;
+		}
+		int move = search.findMove(state, System.nanoTime() + moveTime);
+		if (move != Moves.NONE) {
+			if (count == keys.length) {
+				keys = Arrays.copyOf(keys, count * 2);
+				moves = Arrays.copyOf(moves, count * 2);
+			}
+			keys[count] = key;
+			moves[count++] = move;
+		}
+		if (ply + 1 < plies) {
+			int[] buffer = new int[MoveGenerator.MAX_MOVES];
+			int moveCount = MoveGenerator.generate(state, buffer, 0);
+			for (int i = 0; i < moveCount; i++) {
+				CompactState next = state.copy();
+				next.make(buffer[i]);
+				add(next.copy(), ply + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package sc.player2018.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.search.CompactState;
+import sc.player2018.search.MoveGenerator;
+import sc.player2018.search.Moves;
+import sc.player2018.search.Search;
+import sc.plugin2018.GameState;
+
+/**
+ * Records positions of self-play games, sorted by the phase the logic would
+ * see them in (early, mid, end). Some moves are random, so the games do not all
+ * look the same.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.PositionCorpus [games] [positions per phase] [file] [seed]
+ * </pre>
+ */
+public class PositionCorpus {
+	public static final String EARLY = "early";
+	public static final String MID = "mid";
+	public static final String END = "end";
+
+	private static final long MOVE_TIME = 20 * 1000000L;
+	private static final int RANDOM_MOVES = 15; // percent
+
+	private final Random rand;
+	private final Search search = new Search(16);
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+	private final List<List<String>> samples = new ArrayList<>();
+	private final int[] seen = new int[3];
+	private final int perPhase;
+
+	public PositionCorpus(int perPhase, long seed) {
+		this.perPhase = perPhase;
+		this.rand = new Random(seed);
+		for (int i = 0; i < 3; i++) {
+			samples.add(new ArrayList<>());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		Logger rootLogger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		((ch.qos.logback.classic.Logger) rootLogger).setLevel(ch.qos.logback.classic.Level.WARN);
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int perPhase = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		String file = args.length > 2 ? args[2] : "bench/positions.txt";
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+		PositionCorpus corpus = new PositionCorpus(perPhase, seed);
+		for (int i = 0; i < games; i++) {
+			corpus.playGame();
+		}
+		try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file),
+				StandardCharsets.UTF_8))) {
+			out.println("# " + games + " self-play games, seed " + seed);
+			for (List<String> phase : corpus.samples) {
+				for (String line : phase) {
+					out.println(line);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return phase the logic uses for the player to move
+	 */
+	public static String phase(CompactState state) {
+		int current = state.getCurrent();
+		if (state.getSalads(current) == 0) {
+			return END;
+		}
+		return state.getFieldIndex(current) < 10 ? EARLY : MID;
+	}
+
+	private void playGame() {
+		CompactState state = CompactState.fromGameState(new GameState());
+		while (state.getWinner() == -1) {
+			record(state);
+			int move = Moves.NONE;
+			if (rand.nextInt(100) >= RANDOM_MOVES) {
+				move = search.findMove(state, System.nanoTime() + MOVE_TIME);
+			}
+			if (move == Moves.NONE) {
+				move = moves[rand.nextInt(MoveGenerator.generate(state, moves, 0))];
+			}
+			state.make(move);
+			// keep the undo history short, the game is never taken back
+			state = state.copy();
+		}
+	}
+
+	/**
+	 * Reservoir sampling, every position of a phase has the same chance to be
+	 * kept
+	 */
+	private void record(CompactState state) {
+		String phase = phase(state);
+		int index = phase.equals(EARLY) ? 0 : phase.equals(MID) ? 1 : 2;
+		int count = seen[index]++;
+		List<String> sample = samples.get(index);
+		String line = Positions.format(phase, state);
+		if (sample.size() < perPhase) {
+			sample.add(line);
+		} else {
+			int slot = rand.nextInt(count + 1);
+			if (slot < perPhase) {
+				sample.set(slot, line);
+			}
+		}
+	}
+}
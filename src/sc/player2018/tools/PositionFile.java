@@ -0,0 +1,161 @@
+package sc.player2018.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+
+/**
+ * Binary format for recorded positions, the compact counterpart of
+ * {@link Positions} for corpora of many thousand positions. After a four byte
+ * magic number every position is one record:
+ *
+ * <pre>
+ * flags          byte  1 = a new board follows, 2 = blue to move
+ * board          33 bytes, two fields per byte, only with flag 1
+ * label          modified UTF-8 (DataOutput#writeUTF)
+ * turn           short
+ * red, blue      index byte, carrots short, salads byte, cards byte, last short
+ * </pre>
+ *
+ * The board is only written when it differs from the one of the previous
+ * record, so the positions of one game take about 20 bytes each. Positions
+ * read back in a row share their {@link BoardIndex}.
+ */
+public class PositionFile {
+	public static final String EXTENSION = ".pos";
+
+	// "HuI" and the version
+	private static final int MAGIC = 0x48754901;
+	private static final int NEW_BOARD = 1;
+	private static final int BLUE_TO_MOVE = 2;
+	private static final int PACKED_BOARD = (BoardIndex.SIZE + 1) / 2;
+
+	public static class Writer implements Closeable {
+		private final DataOutputStream out;
+		private byte[] board;
+		private int count;
+
+		public Writer(OutputStream out) throws IOException {
+			this.out = new DataOutputStream(new BufferedOutputStream(out));
+			this.out.writeInt(MAGIC);
+		}
+
+		public void write(String label, CompactState state) throws IOException {
+			boolean newBoard = board == null || !Arrays.equals(board, state.getBoard());
+			out.writeByte((newBoard ? NEW_BOARD : 0) | (state.getCurrent() == CompactState.BLUE ? BLUE_TO_MOVE : 0));
+			if (newBoard) {
+				board = state.getBoard();
+				for (int i = 0; i < BoardIndex.SIZE; i += 2) {
+					int high = i + 1 < BoardIndex.SIZE ? board[i + 1] : 0;
+					out.writeByte(high << 4 | board[i]);
+				}
+			}
+			out.writeUTF(label);
+			out.writeShort(state.getTurn());
+			for (int p = CompactState.RED; p <= CompactState.BLUE; p++) {
+				out.writeByte(state.getFieldIndex(p));
+				out.writeShort(state.getCarrots(p));
+				out.writeByte(state.getSalads(p));
+				out.writeByte(state.getCards(p));
+				out.writeShort(state.getLastAction(p));
+			}
+			count++;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	public static class Reader implements Closeable {
+		private final DataInputStream in;
+		private BoardIndex boardIndex;
+
+		public Reader(InputStream in) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(in));
+			if (this.in.readInt() != MAGIC) {
+				throw new IOException("Not a position file");
+			}
+		}
+
+		/**
+		 * @return the next position, null at the end of the file
+		 */
+		public Positions.Entry next() throws IOException {
+			int flags = in.read();
+			if (flags == -1) {
+				return null;
+			}
+			try {
+				if ((flags & NEW_BOARD) != 0) {
+					byte[] board = new byte[BoardIndex.SIZE];
+					for (int i = 0; i < BoardIndex.SIZE; i += 2) {
+						int packed = in.readUnsignedByte();
+						board[i] = (byte) (packed & 0xf);
+						if (i + 1 < BoardIndex.SIZE) {
+							board[i + 1] = (byte) (packed >> 4);
+						}
+					}
+					boardIndex = new BoardIndex(board);
+				} else if (boardIndex == null) {
+					throw new IOException("First position without a board");
+				}
+				String label = in.readUTF();
+				int turn = in.readShort();
+				CompactState state = new CompactState(boardIndex);
+				for (int p = CompactState.RED; p <= CompactState.BLUE; p++) {
+					state.setPlayer(p, in.readUnsignedByte(), in.readShort(), in.readUnsignedByte(),
+							in.readUnsignedByte(), in.readShort());
+				}
+				state.setTurn(turn, (flags & BLUE_TO_MOVE) != 0 ? CompactState.BLUE : CompactState.RED);
+				return new Positions.Entry(label, state);
+			} catch (EOFException e) {
+				throw new IOException("Position file ends in the middle of a position", e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	public static List<Positions.Entry> read(InputStream in) throws IOException {
+		List<Positions.Entry> entries = new ArrayList<>();
+		Reader reader = new Reader(in);
+		Positions.Entry entry;
+		while ((entry = reader.next()) != null) {
+			entries.add(entry);
+		}
+		return entries;
+	}
+
+	/**
+	 * Reads a file in this format if its name ends with {@link #EXTENSION}, in
+	 * the text format of {@link Positions} otherwise
+	 */
+	public static List<Positions.Entry> read(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return file.getFileName().toString().endsWith(EXTENSION) ? read(in) : Positions.read(in);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package sc.player2018.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+
+/**
+ * Text format for recorded positions, one position per line:
+ *
+ * <pre>
+ * label board turn red(index carrots salads cards last) blue(...)
+ * </pre>
+ *
+ * The board is written as one digit per field (the ordinal of the field type).
+ * Lines starting with # are comments.
+ */
+public class Positions {
+	/**
+	 * A position with the label it was recorded with (e.g. the game phase)
+	 */
+	public static class Entry {
+		public final String label;
+		public final CompactState state;
+
+		public Entry(String label, CompactState state) {
+			this.label = label;
+			this.state = state;
+		}
+	}
+
+	public static String format(String label, CompactState state) {
+		StringBuilder builder = new StringBuilder(label).append(' ');
+		for (byte type : state.getBoard()) {
+			builder.append((char) ('0' + type));
+		}
+		builder.append(' ').append(state.getTurn());
+		for (int p = CompactState.RED; p <= CompactState.BLUE; p++) {
+			builder.append(' ').append(state.getFieldIndex(p)).append(' ').append(state.getCarrots(p)).append(' ')
+					.append(state.getSalads(p)).append(' ').append(state.getCards(p)).append(' ')
+					.append(state.getLastAction(p));
+		}
+		return builder.toString();
+	}
+
+	public static Entry parse(String line) {
+		String[] parts = line.trim().split("\\s+");
+		if (parts.length != 13 || parts[1].length() != BoardIndex.SIZE) {
+			throw new IllegalArgumentException("Not a position: " + line);
+		}
+		byte[] board = new byte[BoardIndex.SIZE];
+		for (int i = 0; i < board.length; i++) {
+			board[i] = (byte) (parts[1].charAt(i) - '0');
+		}
+		CompactState state = new CompactState(board);
+		for (int p = CompactState.RED; p <= CompactState.BLUE; p++) {
+			int offset = 3 + p * 5;
+			state.setPlayer(p, Integer.parseInt(parts[offset]), Integer.parseInt(parts[offset + 1]),
+					Integer.parseInt(parts[offset + 2]), Integer.parseInt(parts[offset + 3]),
+					Integer.parseInt(parts[offset + 4]));
+		}
+		int turn = Integer.parseInt(parts[2]);
+		state.setTurn(turn, turn % 2 == 0 ? CompactState.RED : CompactState.BLUE);
+		return new Entry(parts[0], state);
+	}
+
+	public static List<Entry> read(InputStream in) throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (!line.trim().isEmpty() && !line.startsWith("#")) {
+				entries.add(parse(line));
+			}
+		}
+		return entries;
+	}
+}
@@ -0,0 +1,78 @@
+package sc.player2018.tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import sc.player2018.search.CompactState;
+
+/**
+ * Extracts the positions of replays of the server into a {@link PositionFile},
+ * labeled with the phase the logic sees them in (see
+ * {@link PositionCorpus#phase}). Finished positions are left out. Directories
+ * are searched for replays (.xml and .xml.gz).
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.ReplayExtractor [out] [replays or directories...]
+ * </pre>
+ */
+public class ReplayExtractor {
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: ReplayExtractor [out" + PositionFile.EXTENSION + "] [replays or directories...]");
+			System.exit(1);
+		}
+		List<Path> replays = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			Path path = Paths.get(args[i]);
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> files = Files.walk(path)) {
+					replays.addAll(files.filter(ReplayExtractor::isReplay).sorted().collect(Collectors.toList()));
+				}
+			} else {
+				replays.add(path);
+			}
+		}
+		try (OutputStream out = Files.newOutputStream(Paths.get(args[0]));
+				PositionFile.Writer writer = new PositionFile.Writer(out)) {
+			for (Path replay : replays) {
+				try {
+					int positions = extract(replay, writer);
+					System.out.println(replay + ": " + positions + " positions");
+				} catch (IOException e) {
+					// a broken replay should not stop the others
+					System.err.println(replay + ": " + e.getMessage());
+				}
+			}
+			System.out.println(writer.getCount() + " positions from " + replays.size() + " replays");
+		}
+	}
+
+	private static boolean isReplay(Path file) {
+		String name = file.getFileName().toString();
+		return Files.isRegularFile(file) && (name.endsWith(".xml") || name.endsWith(".xml.gz"));
+	}
+
+	/**
+	 * @return number of positions written
+	 */
+	public static int extract(Path replay, PositionFile.Writer writer) throws IOException {
+		int positions = 0;
+		try (ReplayReader reader = ReplayReader.open(replay)) {
+			CompactState state;
+			while ((state = reader.next()) != null) {
+				if (state.getWinner() == -1) {
+					writer.write(PositionCorpus.phase(state), state);
+					positions++;
+				}
+			}
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,109 @@
+package sc.player2018.tools;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.xmlpull.mxp1.MXParser;
+
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.xml.XppReader;
+
+import sc.player2018.logic.StateDecoder;
+import sc.player2018.search.CompactState;
+import sc.plugin2018.GameState;
+
+/**
+ * Reads the game states of a replay of the server one at a time with the pull
+ * parser of XPP3 and the {@link StateDecoder}, without building objects with
+ * XStream and without holding the whole replay in memory. Every
+ * {@code <state>} element of the file is read, wherever it is nested, so the
+ * protocol of a game and the messages of a room both work. Files ending with
+ * .gz are unpacked on the fly.
+ *
+ * <pre>
+ * try (ReplayReader replay = ReplayReader.open(file)) {
+ * 	CompactState state;
+ * 	while ((state = replay.next()) != null) {
+ * 		...
+ * 	}
+ * }
+ * </pre>
+ *
+ * The states are read into a {@link CompactState}, {@link CompactState#toGameState()}
+ * makes a {@link GameState} of it. The last move of a state is skipped.
+ */
+public class ReplayReader implements Closeable {
+	private final Reader in;
+	private final HierarchicalStreamReader reader;
+	private final StateDecoder decoder = new StateDecoder();
+	// depth of the element the reader is on, 0 is the root
+	private int depth;
+	private int states;
+
+	public ReplayReader(InputStream in) throws IOException {
+		// the server writes UTF-8
+		this.in = new InputStreamReader(in, StandardCharsets.UTF_8);
+		try {
+			reader = new XppReader(this.in, new MXParser());
+		} catch (XStreamException e) {
+			throw new IOException("Could not read replay", e);
+		}
+	}
+
+	public static ReplayReader open(Path file) throws IOException {
+		InputStream in = new BufferedInputStream(Files.newInputStream(file));
+		if (file.getFileName().toString().endsWith(".gz")) {
+			in = new GZIPInputStream(in);
+		}
+		return new ReplayReader(in);
+	}
+
+	/**
+	 * @return the next state of the replay, null at the end
+	 */
+	public CompactState next() throws IOException {
+		try {
+			while (true) {
+				if (reader.hasMoreChildren()) {
+					reader.moveDown();
+					if (reader.getNodeName().equals("state")) {
+						states++;
+						CompactState state = decoder.decode(reader, null);
+						reader.moveUp();
+						return state;
+					}
+					// states can be nested in other elements
+					depth++;
+				} else if (depth > 0) {
+					reader.moveUp();
+					depth--;
+				} else {
+					return null;
+				}
+			}
+		} catch (XStreamException e) {
+			throw new IOException("Invalid replay at state " + states + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return number of states read so far
+	 */
+	public int getStates() {
+		return states;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,215 @@
+package sc.player2018.tools;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import sc.player2018.search.BoardIndex;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.MoveGenerator;
+import sc.player2018.search.Moves;
+import sc.player2018.search.Zobrist;
+import sc.plugin2018.Board;
+import sc.plugin2018.FieldType;
+import sc.plugin2018.GameState;
+import sc.plugin2018.Move;
+import sc.plugin2018.util.GameRuleLogic;
+import sc.shared.InvalidMoveException;
+
+/**
+ * Differential check of {@link CompactState} and {@link MoveGenerator} against
+ * the rules of the SDK. Plays random games and compares every rule query, the
+ * generated moves, every move and every conversion with {@link GameRuleLogic},
+ * {@link GameState#getPossibleMoves()} and {@link Move#perform(GameState)}.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.RulesCheck [games] [seed]
+ * </pre>
+ *
+ * The seed only fixes the moves and constructed positions, the boards are
+ * shuffled by the SDK.
+ */
+public class RulesCheck {
+	private static final int MAX_ERRORS = 20;
+
+	private final Random rand;
+	private final int[] buffer = new int[MoveGenerator.MAX_MOVES];
+	private long positions;
+	private long moves;
+	private long rejected;
+	private int errors;
+
+	public RulesCheck(long seed) {
+		this.rand = new Random(seed);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		RulesCheck check = new RulesCheck(seed);
+		for (int i = 0; i < games && check.errors < MAX_ERRORS; i++) {
+			check.playGame(i % 2 == 0 ? new GameState() : check.randomState());
+		}
+		System.out.println("Checked " + check.positions + " positions and " + check.moves + " moves (seed " + seed
+				+ "), " + check.rejected + " moves rejected by the SDK itself, " + check.errors + " errors");
+		System.exit(check.errors == 0 ? 0 : 1);
+	}
+
+	private GameState randomState() {
+		CompactState state = CompactState.fromGameState(new GameState());
+		return randomize(state).toGameState();
+	}
+
+	private CompactState randomize(CompactState template) {
+		byte[] board = template.getBoard();
+		CompactState state = new CompactState(template.getBoardIndex());
+		int red = randomField(board, -1);
+		int blue = randomField(board, red);
+		state.setPlayer(CompactState.RED, red, rand.nextInt(150), rand.nextInt(6), rand.nextInt(16), randomAction());
+		state.setPlayer(CompactState.BLUE, blue, rand.nextInt(150), rand.nextInt(6), rand.nextInt(16),
+				randomAction());
+		int turn = rand.nextInt(50);
+		state.setTurn(turn, turn % 2 == 0 ? CompactState.RED : CompactState.BLUE);
+		return state;
+	}
+
+	private int randomAction() {
+		int[] lastActions = { CompactState.LAST_NONE, CompactState.LAST_ADVANCE | 3 << 4, CompactState.LAST_EAT_SALAD,
+				CompactState.LAST_EXCHANGE_CARROTS | 10 << 4, CompactState.LAST_FALL_BACK,
+				CompactState.LAST_CARD_TAKE_OR_DROP_CARROTS | -20 << 4, CompactState.LAST_CARD_EAT_SALAD,
+				CompactState.LAST_CARD_FALL_BACK, CompactState.LAST_CARD_HURRY_AHEAD };
+		return lastActions[rand.nextInt(lastActions.length)];
+	}
+
+	private int randomField(byte[] board, int other) {
+		while (true) {
+			int index = rand.nextInt(board.length - 1);
+			if (index != other && board[index] != CompactState.HEDGEHOG) {
+				return index;
+			}
+		}
+	}
+
+	private void playGame(GameState gameState) throws Exception {
+		BoardIndex board = BoardIndex.of(gameState.getBoard());
+		checkBoard(gameState.getBoard(), board);
+		while (errors < MAX_ERRORS) {
+			CompactState state = CompactState.fromGameState(gameState, board);
+			checkPosition(gameState, state);
+			if (state.getWinner() != -1) {
+				return;
+			}
+			List<Move> possibleMoves = gameState.getPossibleMoves();
+			compareMoves(possibleMoves, state);
+			for (Move move : possibleMoves) {
+				checkMove(gameState, state, move);
+			}
+			try {
+				possibleMoves.get(rand.nextInt(possibleMoves.size())).perform(gameState);
+			} catch (InvalidMoveException e) {
+				return;
+			}
+		}
+	}
+
+	private void checkPosition(GameState gameState, CompactState state) {
+		positions++;
+		if (!state.samePosition(CompactState.fromGameState(state.toGameState()))) {
+			error("conversion is not lossless", state);
+		}
+		compare("isValidToEat", GameRuleLogic.isValidToEat(gameState), state.isValidToEat(), state);
+		compare("isValidToExchangeCarrots 10", GameRuleLogic.isValidToExchangeCarrots(gameState, 10),
+				state.isValidToExchangeCarrots(10), state);
+		compare("isValidToExchangeCarrots -10", GameRuleLogic.isValidToExchangeCarrots(gameState, -10),
+				state.isValidToExchangeCarrots(-10), state);
+		compare("isValidToFallBack", GameRuleLogic.isValidToFallBack(gameState), state.isValidToFallBack(), state);
+		for (int distance = 0; distance <= 50; distance++) {
+			compare("isValidToAdvance " + distance, GameRuleLogic.isValidToAdvance(gameState, distance),
+					state.isValidToAdvance(distance), state);
+		}
+		for (int card = Moves.CARD_EAT_SALAD; card <= Moves.CARD_TAKE_0; card++) {
+			compare("isValidToPlayCard " + Moves.cardType(card) + " " + Moves.cardValue(card),
+					GameRuleLogic.isValidToPlayCard(gameState, Moves.cardType(card), Moves.cardValue(card)),
+					state.isValidToPlayCard(card), state);
+		}
+	}
+
+	private void compareMoves(List<Move> possibleMoves, CompactState state) {
+		int[] expected = new int[possibleMoves.size()];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = Moves.fromMove(possibleMoves.get(i));
+		}
+		int[] actual = Arrays.copyOf(buffer, MoveGenerator.generate(state, buffer, 0));
+		if (!Arrays.equals(expected, actual)) {
+			error("move generator differs, expected " + toString(expected) + " but got " + toString(actual), state);
+		}
+	}
+
+	private static String toString(int[] moves) {
+		StringBuilder builder = new StringBuilder("[");
+		for (int move : moves) {
+			builder.append(builder.length() > 1 ? "; " : "").append(Moves.toString(move));
+		}
+		return builder.append(']').toString();
+	}
+
+	private void checkMove(GameState gameState, CompactState state, Move move) throws Exception {
+		moves++;
+		int encoded = Moves.fromMove(move);
+		GameState next = gameState.clone();
+		try {
+			move.clone().perform(next);
+		} catch (InvalidMoveException e) {
+			// the generator of the SDK is not always consistent with its own rules
+			// in constructed positions, nothing to compare against
+			rejected++;
+			return;
+		}
+		CompactState before = state.copy();
+		state.make(encoded);
+		if (!state.samePosition(CompactState.fromGameState(next, state.getBoardIndex()))) {
+			error("make differs for " + Moves.toString(encoded), before);
+		}
+		if (state.getHash() != Zobrist.hash(state)) {
+			error("hash not updated by make for " + Moves.toString(encoded), before);
+		}
+		state.unmake();
+		if (!state.samePosition(before) || state.getHash() != before.getHash()) {
+			error("unmake differs for " + Moves.toString(encoded), before);
+		}
+		if (!Moves.toMove(encoded).equals(move)) {
+			error("encoding differs for " + move, before);
+		}
+	}
+
+	private void checkBoard(Board expected, BoardIndex actual) {
+		for (FieldType type : FieldType.values()) {
+			for (int i = -1; i < BoardIndex.SIZE; i++) {
+				if (i >= 0 && actual.getTypeAt(i) != expected.getTypeAt(i)
+						|| actual.getNextFieldByType(type, i) != expected.getNextFieldByType(type, i)
+						|| i >= 0 && actual.getPreviousFieldByType(type, i) != expected.getPreviousFieldByType(type, i)) {
+					errors++;
+					System.out.println("board index differs for " + type + " at " + i);
+				}
+			}
+		}
+		for (int i = 0; i < 2000; i++) {
+			if (BoardIndex.carrotCost(i) != GameRuleLogic.calculateCarrots(i)
+					|| BoardIndex.maxReach(i) != GameRuleLogic.calculateMoveableFields(i)) {
+				errors++;
+				System.out.println("carrot tables differ at " + i);
+			}
+		}
+	}
+
+	private void compare(String query, boolean expected, boolean actual, CompactState state) {
+		if (expected != actual) {
+			error(query + " expected " + expected, state);
+		}
+	}
+
+	private void error(String message, CompactState state) {
+		errors++;
+		System.out.println(message + " in " + state);
+	}
+}
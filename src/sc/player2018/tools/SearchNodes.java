@@ -0,0 +1,68 @@
+package sc.player2018.tools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.search.MoveOrdering;
+import sc.player2018.search.Search;
+import sc.player2018.search.TranspositionTable;
+
+/**
+ * Counts the nodes the search needs to reach a fixed depth on recorded
+ * positions, with the {@link MoveOrdering} and with only the move of the
+ * table first. Every position is searched with an empty table. The fewer
+ * nodes, the better the ordering; the best moves should mostly agree, they
+ * only differ between moves of the same score.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.SearchNodes [positions] [depth]
+ * </pre>
+ */
+public class SearchNodes {
+	private static final int TABLE_SIZE = 16;
+
+	public static void main(String[] args) throws IOException {
+		// logback.xml of the client sets the level of sc, not only of the root
+		Logger logger = LoggerFactory.getLogger("sc");
+		((ch.qos.logback.classic.Logger) logger).setLevel(ch.qos.logback.classic.Level.WARN);
+		String file = args.length > 0 ? args[0] : "bench/positions.txt";
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		List<Positions.Entry> entries = PositionFile.read(Paths.get(file));
+
+		// per label: nodes with ordering, nodes without, positions, same best move,
+		// nanoseconds with ordering, nanoseconds without
+		Map<String, long[]> results = new LinkedHashMap<>();
+		for (Positions.Entry entry : entries) {
+			Search ordered = new Search(new TranspositionTable(TABLE_SIZE));
+			Search unordered = new Search(new TranspositionTable(TABLE_SIZE));
+			unordered.setOrderMoves(false);
+			long start = System.nanoTime();
+			int orderedMove = ordered.findMove(entry.state.copy(), depth);
+			long middle = System.nanoTime();
+			int unorderedMove = unordered.findMove(entry.state.copy(), depth);
+			long end = System.nanoTime();
+			long[] result = results.computeIfAbsent(entry.label, label -> new long[6]);
+			result[4] += middle - start;
+			result[5] += end - middle;
+			result[0] += ordered.getNodes();
+			result[1] += unordered.getNodes();
+			result[2]++;
+			if (orderedMove == unorderedMove) {
+				result[3]++;
+			}
+		}
+		System.out.printf("depth %d%n", depth);
+		for (Map.Entry<String, long[]> result : results.entrySet()) {
+			long[] r = result.getValue();
+			System.out.printf("%-6s %4d positions: %12d nodes ordered, %12d without (%.1f%%), %d ms / %d ms, same move %d%n",
+					result.getKey(), r[2], r[0], r[1], 100.0 * r[0] / Math.max(1, r[1]), r[4] / 1000000,
+					r[5] / 1000000, r[3]);
+		}
+	}
+}
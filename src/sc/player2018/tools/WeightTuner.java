@@ -0,0 +1,159 @@
+package sc.player2018.tools;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sc.player2018.Settings;
+import sc.player2018.logic.Logic;
+import sc.player2018.search.CompactState;
+import sc.player2018.search.Weights;
+
+/**
+ * Tunes the {@link Weights} by self-play with SPSA (simultaneous perturbation
+ * stochastic approximation): every iteration all tuned terms are moved up or
+ * down at random at the same time, the two resulting players play a match in
+ * the {@link Arena} on all cores and all terms are moved towards the side that
+ * won. The weights are written to the file after every iteration, a run can be
+ * continued from it.
+ *
+ * <pre>
+ * java -cp ... sc.player2018.tools.WeightTuner [iterations] [games per iteration] [player] [file] [parallelism] [openings]
+ * </pre>
+ *
+ * The player is an arena player, {@code logic:100} by default. The games start
+ * from the positions of the openings file (text or {@link PositionFile}, e.g.
+ * extracted from replays) if one is given, from the initial position
+ * otherwise.
+ */
+public class WeightTuner {
+	private static final Weights.Term[] TERMS = Weights.Term.values();
+
+	// perturbation in steps at the first iteration, shrinks slowly
+	private static final double PERTURBATION = 2;
+	// size of the first moves in steps, for a match won by all games
+	private static final double LEARNING_RATE = 4;
+	// usual exponents of SPSA
+	private static final double ALPHA = 0.602;
+	private static final double GAMMA = 0.101;
+
+	// arena player the weights are tried with
+	private final String player;
+	private final int games;
+	private final int parallelism;
+	private List<CompactState> openings = new ArrayList<>();
+	private int nextOpening;
+	private final Random random = new Random();
+	// values of the tuned terms, kept as fractions between the iterations
+	private final double[] theta;
+	// smallest change of each term that makes a difference
+	private final double[] step;
+	private final int iterations;
+
+	public WeightTuner(String player, Weights start, int iterations, int games, int parallelism) {
+		this.player = player;
+		this.iterations = iterations;
+		this.games = games;
+		this.parallelism = parallelism;
+		int[] values = start.toArray();
+		theta = new double[values.length];
+		step = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			theta[i] = values[i];
+			step[i] = Math.max(1, Math.abs(TERMS[i].initial) / 10.0);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Logger rootLogger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		((ch.qos.logback.classic.Logger) rootLogger).setLevel(ch.qos.logback.classic.Level.ERROR);
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+		String player = args.length > 2 ? args[2] : "logic:100";
+		Path file = Paths.get(args.length > 3 ? args[3] : "weights.txt");
+		int parallelism = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		Weights start = Files.exists(file) ? Weights.read(file) : Weights.DEFAULT;
+		WeightTuner tuner = new WeightTuner(player, start, iterations, games, parallelism);
+		if (args.length > 5) {
+			List<CompactState> openings = new ArrayList<>();
+			for (Positions.Entry entry : PositionFile.read(Paths.get(args[5]))) {
+				openings.add(entry.state);
+			}
+			// every iteration plays other openings
+			Collections.shuffle(openings);
+			tuner.setOpenings(openings);
+		}
+		long begin = System.nanoTime();
+		for (int k = 0; k < iterations; k++) {
+			double score = tuner.iterate(k);
+			Weights current = tuner.getWeights();
+			current.write(file);
+			System.out.printf("iteration %d, %.0f s, plus side scored %.2f: %s%n", k + 1,
+					(System.nanoTime() - begin) / 1e9, score, current);
+		}
+	}
+
+	/**
+	 * One SPSA step
+	 *
+	 * @return share of the games won by the side with the added perturbation
+	 */
+	public double iterate(int k) throws InterruptedException {
+		double c = PERTURBATION / Math.pow(k + 1, GAMMA);
+		double a = LEARNING_RATE / Math.pow(k + 1 + iterations / 10.0, ALPHA);
+		int[] delta = new int[theta.length];
+		int[] plus = new int[theta.length];
+		int[] minus = new int[theta.length];
+		for (int i = 0; i < theta.length; i++) {
+			delta[i] = TERMS[i].tuned ? (random.nextBoolean() ? 1 : -1) : 0;
+			plus[i] = (int) Math.round(theta[i] + c * delta[i] * step[i]);
+			minus[i] = (int) Math.round(theta[i] - c * delta[i] * step[i]);
+		}
+		Arena.Summary summary = new Arena(player(Weights.of(plus)), player(Weights.of(minus)))
+				.setOpenings(nextOpenings()).run(games, parallelism);
+		double score = summary.winRate();
+		// difference of the results of both sides, between -1 and 1
+		double difference = 2 * score - 1;
+		for (int i = 0; i < theta.length; i++) {
+			theta[i] += a * difference * delta[i] * step[i] / (2 * c);
+		}
+		return score;
+	}
+
+	public void setOpenings(List<CompactState> openings) {
+		this.openings = openings;
+	}
+
+	/**
+	 * @return the openings of the next iteration, one per two games
+	 */
+	private List<CompactState> nextOpenings() {
+		List<CompactState> next = new ArrayList<>();
+		for (int i = 0; i < (games + 1) / 2 && !openings.isEmpty(); i++) {
+			next.add(openings.get(nextOpening++ % openings.size()));
+		}
+		return next;
+	}
+
+	private Arena.PlayerFactory player(Weights weights) {
+		Settings settings = Arena.settings(player);
+		settings.weights = weights;
+		return sender -> new Logic(sender, settings);
+	}
+
+	public Weights getWeights() {
+		int[] values = new int[theta.length];
+		for (int i = 0; i < theta.length; i++) {
+			values[i] = (int) Math.round(theta[i]);
+		}
+		return Weights.of(values);
+	}
+}